@@ -0,0 +1,801 @@
+import java.util.SplittableRandom;
+import java.util.function.BooleanSupplier;
+
+
+/**
+ * The search algorithms shared by every graph representation. Subclasses only have to provide the adjacency
+ * structure, the local search and the metaheuristic are written against {@link GraphInterface}.
+ *
+ * @param <Vertex> the type of the vertices
+ * @author Seppe Degryse
+ * @version 1.17
+ */
+public abstract class AbstractGraph<Vertex> implements GraphInterface<Vertex> {
+
+    private static final BooleanSupplier NEVER = () -> false;
+
+    static final int STOP_INTERVAL = 256;
+
+    private SplittableRandom random = new SplittableRandom();
+
+    private CoolingSchedule coolingSchedule = CoolingSchedule.geometric(100, 0.1, 0.93);
+
+    private Strategy strategy = Strategy.ANNEALING;
+
+    private SpanningTree spanningTree = SpanningTree.WARNSDORFF;
+
+    // computed on first use, -1 until then or after the edges changed
+    private int lowerBound = -1;
+
+
+    /**
+     * Getter for the random source of this graph. It is used by every method that does not take a random source as
+     * argument. The source is not thread safe, parallel searches derive their own sources from a seed.
+     *
+     * @return the random source
+     */
+    public SplittableRandom getRandom()
+    {
+        return random;
+    }
+
+
+    /**
+     * Replaces the random source of this graph.
+     *
+     * @param random the new random source
+     * @throws IllegalArgumentException if the random source is null
+     */
+    public void setRandom(SplittableRandom random) throws IllegalArgumentException
+    {
+        if (random == null)
+            throw new IllegalArgumentException("The random source can not be null!");
+
+        this.random = random;
+    }
+
+
+    /**
+     * Seeds the random source of this graph, every search started afterwards without an explicit random source or
+     * seed is reproducible.
+     *
+     * @param seed the seed
+     */
+    public void setSeed(long seed)
+    {
+        random = new SplittableRandom(seed);
+    }
+
+
+    /**
+     * Getter for the cooling schedule of the metaheuristic.
+     *
+     * @return the cooling schedule
+     */
+    public CoolingSchedule getCoolingSchedule()
+    {
+        return coolingSchedule;
+    }
+
+
+    /**
+     * Replaces the cooling schedule of the metaheuristic, by default the temperature drops geometrically from 100 to
+     * 0.1 with factor 0.93.
+     *
+     * @param coolingSchedule the new cooling schedule
+     * @throws IllegalArgumentException if the cooling schedule is null
+     */
+    public void setCoolingSchedule(CoolingSchedule coolingSchedule) throws IllegalArgumentException
+    {
+        if (coolingSchedule == null)
+            throw new IllegalArgumentException("The cooling schedule can not be null!");
+
+        this.coolingSchedule = coolingSchedule;
+    }
+
+
+    /**
+     * Getter for the metaheuristic the restarts run.
+     *
+     * @return the strategy
+     */
+    public Strategy getStrategy()
+    {
+        return strategy;
+    }
+
+
+    /**
+     * Replaces the metaheuristic the restarts run, by default simulated annealing. Parallel tempering always anneals.
+     *
+     * @param strategy the new strategy
+     * @throws IllegalArgumentException if the strategy is null
+     */
+    public void setStrategy(Strategy strategy) throws IllegalArgumentException
+    {
+        if (strategy == null)
+            throw new IllegalArgumentException("The strategy can not be null!");
+
+        this.strategy = strategy;
+    }
+
+
+    /**
+     * Getter for the construction of the spanning trees the restarts start from.
+     *
+     * @return the construction
+     */
+    public SpanningTree getSpanningTree()
+    {
+        return spanningTree;
+    }
+
+
+    /**
+     * Replaces the construction of the spanning trees the restarts start from, by default Warnsdorff's rule.
+     *
+     * @param spanningTree the new construction
+     * @throws IllegalArgumentException if the construction is null
+     */
+    public void setSpanningTree(SpanningTree spanningTree) throws IllegalArgumentException
+    {
+        if (spanningTree == null)
+            throw new IllegalArgumentException("The spanning tree can not be null!");
+
+        this.spanningTree = spanningTree;
+    }
+
+
+    /**
+     * Getter for a lower bound on the minimum path partition number. The bound is computed once and kept until the
+     * graph changes, a search that reaches it has found an optimal path cover and stops.
+     *
+     * @return the lower bound
+     * @see LowerBound
+     */
+    public int getPathPartitionLowerBound()
+    {
+        if (lowerBound < 0) lowerBound = LowerBound.of(this);
+        return lowerBound;
+    }
+
+
+    /**
+     * Forgets the lower bound, subclasses that change their vertices or edges have to call this.
+     */
+    protected void invalidateLowerBound()
+    {
+        lowerBound = -1;
+    }
+
+
+    /**
+     * Returns the index of a vertex. The vertices of every graph are numbered 0..n-1, the index based methods let the
+     * search walk the graph without hashing or boxing.
+     *
+     * @param vertex the vertex
+     * @return the index of the vertex or -1 if it is not part of the graph
+     */
+    public abstract int indexOf(Vertex vertex);
+
+
+    /**
+     * Returns the vertex with a given index.
+     *
+     * @param index the index of the vertex
+     */
+    @Override
+    public abstract Vertex vertexAt(int index);
+
+
+    /**
+     * Returns the degree of the vertex with a given index.
+     *
+     * @param index the index of the vertex
+     */
+    public abstract int degreeAt(int index);
+
+
+    /**
+     * Returns the index of the k-th neighbour of the vertex with a given index.
+     *
+     * @param index the index of the vertex
+     * @param k     the position of the neighbour, between 0 and the degree of the vertex
+     */
+    public abstract int neighborIndexAt(int index, int k);
+
+
+    /**
+     * Returns the k-th neighbour of a vertex without copying its neighbours.
+     *
+     * @param u the vertex
+     * @param k the position of the neighbour, between 0 and the degree of the vertex
+     * @throws IndexOutOfBoundsException if the vertex is not part of the graph or has no k-th neighbour
+     */
+    @Override
+    public Vertex neighborAt(Vertex u, int k) throws IndexOutOfBoundsException
+    {
+        int i = indexOf(u);
+        if (i < 0 || k < 0 || k >= degreeAt(i)) throw new IndexOutOfBoundsException("Index: " + k);
+
+        return vertexAt(neighborIndexAt(i, k));
+    }
+
+
+    /**
+     * Construct a spanning tree of the graph, which is used as the initial solution for the local search
+     * (metaheuristic) algorithm.
+     */
+    @Override
+    public TreeInterface<Vertex> getInitialSpanningTree()
+    {
+        return getInitialSpanningTree(random);
+    }
+
+
+    /**
+     * Construct a spanning tree of the graph from a random root with the construction of this graph. The tree gets its
+     * own random source, split off from the given one.
+     *
+     * @param random the random source used to pick the root and by the construction
+     * @return the spanning tree
+     * @see AbstractGraph#setSpanningTree(SpanningTree)
+     */
+    public Tree<Vertex> getInitialSpanningTree(SplittableRandom random)
+    {
+        return getInitialSpanningTree(random, null);
+    }
+
+
+    /**
+     * Construct a spanning tree of the graph from a random root in a tree of an earlier restart. The tree is cleared
+     * and grown again, which saves allocating its adjacency arrays, union find and scratch buffers for every restart.
+     * A tree that does not span this graph is not reused.
+     *
+     * @param random the random source used to pick the root and by the construction
+     * @param reuse  the tree to grow the spanning tree in, may be null
+     * @return the spanning tree, the given tree if it was reused
+     */
+    Tree<Vertex> getInitialSpanningTree(SplittableRandom random, Tree<Vertex> reuse)
+    {
+        Tree<Vertex> tree = reuse;
+        if (tree != null && tree.getSource() == this && tree.getNumberOfVertices() == getNumberOfVertices()) {
+            tree.clear();
+        } else {
+            tree = new Tree<>(this);
+        }
+        // random number between 0 and the number of vertices
+        int root = random.nextInt(getNumberOfVertices());
+        spanningTree.grow(this, tree, root, random);
+
+        tree.setRootIndex(root);
+        tree.setRandom(random.split());
+        return tree;
+    }
+
+
+    /**
+     * Apply the local search algorithm. It returns an estimate for the hamiltonian completion number and needs to stop
+     * after maxIterations iterations.
+     *
+     * @param maxIterations the maximum number of iterations
+     */
+    @Override
+    public int applyLocalSearchAlgorithm(int maxIterations)
+    {
+        return applyLocalSearchAlgorithm(maxIterations, 1, random.nextLong());
+    }
+
+
+    /**
+     * Apply the local search algorithm on multiple threads. The result only depends on the seed, not on the number of
+     * threads.
+     *
+     * @param maxIterations the maximum number of iterations
+     * @param threads       the number of threads to run the restarts on
+     * @param seed          the seed of the restarts
+     * @see Multistart
+     */
+    public int applyLocalSearchAlgorithm(int maxIterations, int threads, long seed)
+    {
+        return getLocalSearchSolution(maxIterations, threads, seed).getHamiltonianCompletionNumber();
+    }
+
+
+    /**
+     * Apply the local search algorithm on multiple threads and return the best path cover it found.
+     *
+     * @param maxIterations the maximum number of iterations
+     * @param threads       the number of threads to run the restarts on
+     * @param seed          the seed of the restarts
+     * @return the best path cover, its added edges and the time it was found
+     * @see Multistart
+     */
+    public Solution getLocalSearchSolution(int maxIterations, int threads, long seed)
+    {
+        Solution exact = solveExactly();
+        if (exact != null) return exact;
+
+        int restarts = Math.min(maxIterations, getNumberOfVertices());
+        return new Multistart<>(this, threads).solve(restarts, false, seed);
+    }
+
+
+    /**
+     * Apply your chosen metaheuristic. It returns an estimate for the hamiltonian completion number.
+     *
+     * @param maxIterations the maximum number of iterations
+     */
+    @Override
+    public int applyMetaheuristic(int maxIterations)
+    {
+        return applyMetaheuristic(maxIterations, 1, random.nextLong());
+    }
+
+
+    /**
+     * Apply the metaheuristic on multiple threads. The result only depends on the seed, not on the number of threads.
+     *
+     * @param maxIterations the maximum number of iterations
+     * @param threads       the number of threads to run the restarts on
+     * @param seed          the seed of the restarts
+     * @see Multistart
+     */
+    public int applyMetaheuristic(int maxIterations, int threads, long seed)
+    {
+        return getMetaheuristicSolution(maxIterations, threads, seed).getHamiltonianCompletionNumber();
+    }
+
+
+    /**
+     * Apply the metaheuristic on multiple threads and return the best path cover it found.
+     *
+     * @param maxIterations the maximum number of iterations
+     * @param threads       the number of threads to run the restarts on
+     * @param seed          the seed of the restarts
+     * @return the best path cover, its added edges and the time it was found
+     * @see Multistart
+     */
+    public Solution getMetaheuristicSolution(int maxIterations, int threads, long seed)
+    {
+        Solution exact = solveExactly();
+        if (exact != null) return exact;
+
+        int restarts = Math.min(maxIterations, getNumberOfVertices());
+        return new Multistart<>(this, threads).solve(restarts, true, seed);
+    }
+
+
+    /**
+     * Apply the metaheuristic until a time budget is spent. Restarts keep being started until the budget runs out,
+     * the restart that is running at that moment returns its best tree so far.
+     *
+     * @param milliseconds the time budget in milliseconds
+     * @return the best estimate for the hamiltonian completion number and the time it was found
+     */
+    public Solution applyMetaheuristicWithin(long milliseconds)
+    {
+        return applyMetaheuristicWithin(milliseconds, 1, random.nextLong());
+    }
+
+
+    /**
+     * Apply the metaheuristic on multiple threads until a time budget is spent.
+     *
+     * @param milliseconds the time budget in milliseconds
+     * @param threads      the number of threads to run the restarts on
+     * @param seed         the seed of the restarts
+     * @return the best estimate for the hamiltonian completion number and the time it was found
+     * @throws IllegalArgumentException if the time budget is negative
+     * @see Multistart#runFor(long, boolean, long)
+     */
+    public Solution applyMetaheuristicWithin(long milliseconds, int threads, long seed) throws IllegalArgumentException
+    {
+        if (milliseconds < 0)
+            throw new IllegalArgumentException("The time budget can not be negative!");
+
+        Solution exact = solveExactly();
+        if (exact != null) return exact;
+
+        return new Multistart<>(this, threads).runFor(milliseconds * 1000000, true, seed);
+    }
+
+
+    /**
+     * Apply parallel tempering: replicas of the metaheuristic at fixed temperatures that exchange their states. The
+     * result only depends on the seed, not on the number of threads.
+     *
+     * @param rounds   the number of rounds, every replica proposes n moves per round
+     * @param replicas the number of temperatures
+     * @param threads  the number of threads to run the replicas on
+     * @param seed     the seed of the replicas and the exchanges
+     * @see ParallelTempering
+     */
+    public int applyParallelTempering(int rounds, int replicas, int threads, long seed)
+    {
+        return getParallelTemperingSolution(rounds, replicas, threads, seed).getHamiltonianCompletionNumber();
+    }
+
+
+    /**
+     * Apply parallel tempering and return the best path cover it found.
+     *
+     * @param rounds   the number of rounds, every replica proposes n moves per round
+     * @param replicas the number of temperatures
+     * @param threads  the number of threads to run the replicas on
+     * @param seed     the seed of the replicas and the exchanges
+     * @return the best path cover, its added edges and the time it was found
+     * @see ParallelTempering
+     */
+    public Solution getParallelTemperingSolution(int rounds, int replicas, int threads, long seed)
+    {
+        Solution exact = solveExactly();
+        if (exact != null) return exact;
+
+        return new ParallelTempering<>(this, replicas, threads).solve(rounds, seed);
+    }
+
+
+    /**
+     * Apply parallel tempering until a time budget is spent.
+     *
+     * @param milliseconds the time budget in milliseconds
+     * @param replicas     the number of temperatures
+     * @param threads      the number of threads to run the replicas on
+     * @param seed         the seed of the replicas and the exchanges
+     * @return the best estimate for the hamiltonian completion number and the time it was found
+     * @throws IllegalArgumentException if the time budget is negative
+     * @see ParallelTempering#runFor(long, long)
+     */
+    public Solution applyParallelTemperingWithin(long milliseconds, int replicas, int threads, long seed)
+            throws IllegalArgumentException
+    {
+        if (milliseconds < 0)
+            throw new IllegalArgumentException("The time budget can not be negative!");
+
+        Solution exact = solveExactly();
+        if (exact != null) return exact;
+
+        return new ParallelTempering<>(this, replicas, threads).runFor(milliseconds * 1000000, seed);
+    }
+
+
+    /**
+     * Solves a small graph exactly instead of searching it.
+     *
+     * @return an optimal solution, or null if the graph is too large or the branch and bound gave up
+     * @see ExactSolver
+     */
+    private Solution solveExactly()
+    {
+        if (getNumberOfVertices() == 0 || getNumberOfVertices() > ExactSolver.MAX_VERTICES) return null;
+
+        Solution solution = ExactSolver.solve(this, ExactSolver.NODE_LIMIT);
+        return solution.isOptimal() ? solution : null;
+    }
+
+
+    /**
+     * Apply the local search algorithm. It returns an estimate for the minimum path partition number
+     *
+     * @param tree the tree to apply the local search algorithm on
+     * @return the minimum path partition number
+     */
+    public int localSearch(Tree<Vertex> tree)
+    {
+        return localSearch(tree, random, NEVER);
+    }
+
+
+    /**
+     * Apply the local search algorithm. It returns an estimate for the minimum path partition number
+     *
+     * @param tree   the tree to apply the local search algorithm on
+     * @param random the random source of the move operator
+     * @param stop   checked before every move, the search returns as soon as it is true
+     * @return the minimum path partition number
+     */
+    public int localSearch(Tree<Vertex> tree, SplittableRandom random, BooleanSupplier stop)
+    {
+        return localSearch(tree, random, stop, null);
+    }
+
+
+    /**
+     * Apply the local search algorithm. It returns an estimate for the minimum path partition number
+     *
+     * @param tree   the tree to apply the local search algorithm on
+     * @param random the random source of the move operator
+     * @param stop   checked before every move, the search returns as soon as it is true
+     * @param cover  receives the path cover of the returned path partition number, may be null
+     * @return the minimum path partition number
+     * @see Tree#copyPathCoverTo(int[])
+     */
+    public int localSearch(Tree<Vertex> tree, SplittableRandom random, BooleanSupplier stop, int[] cover)
+    {
+        return localSearch(tree, random, stop, cover, null);
+    }
+
+
+    /**
+     * Apply the local search algorithm and record the moment it found its path cover.
+     *
+     * @param tree   the tree to apply the local search algorithm on
+     * @param random the random source of the move operator
+     * @param stop   checked before every move, the search returns as soon as it is true
+     * @param cover  receives the path cover of the returned path partition number, may be null
+     * @param found  receives the value of {@link System#nanoTime()} when the cover was found, may be null
+     * @return the minimum path partition number
+     */
+    int localSearch(Tree<Vertex> tree, SplittableRandom random, BooleanSupplier stop, int[] cover, long[] found)
+    {
+        int ppn = tree.getMinimumPathPartitionNumber();
+        snapshot(tree, cover, found);
+
+        int bound = getPathPartitionLowerBound();
+        while (ppn > bound && !stop.getAsBoolean()) {
+            tree.perturb(this, random);
+            int newPPN = tree.getMinimumPathPartitionNumber();
+
+            if (newPPN <= bound) {
+                snapshot(tree, cover, found);
+                Metrics.improved(newPPN);
+                return newPPN;
+            }
+            if (newPPN < ppn) {
+                ppn = newPPN;
+                snapshot(tree, cover, found);
+                Metrics.improved(ppn);
+            } else {
+                return ppn;
+            }
+        }
+
+        return ppn;
+    }
+
+
+    /**
+     * Apply the metaheuristic search algorithm. It returns an estimate for the minimum path partition number
+     *
+     * @param tree the tree to apply the metaheuristic search algorithm on
+     * @return the minimum path partition number
+     */
+    public int metaheuristicSearch(Tree<Vertex> tree)
+    {
+        return metaheuristicSearch(tree, random, NEVER);
+    }
+
+
+    /**
+     * Apply the metaheuristic search algorithm. It returns an estimate for the minimum path partition number
+     *
+     * @param tree   the tree to apply the metaheuristic search algorithm on
+     * @param random the random source of the move operator and the acceptance criterion
+     * @param stop   checked before every move, the search returns as soon as it is true
+     * @return the minimum path partition number
+     */
+    public int metaheuristicSearch(Tree<Vertex> tree, SplittableRandom random, BooleanSupplier stop)
+    {
+        return metaheuristicSearch(tree, random, stop, null);
+    }
+
+
+    /**
+     * Apply the metaheuristic search algorithm of the strategy of this graph. It returns an estimate for the minimum
+     * path partition number.
+     *
+     * @param tree   the tree to apply the metaheuristic search algorithm on
+     * @param random the random source of the move operator and the acceptance criterion
+     * @param stop   checked every {@value #STOP_INTERVAL} moves, the search returns as soon as it is true
+     * @param cover  receives the path cover of the returned path partition number, may be null
+     * @return the minimum path partition number
+     * @see AbstractGraph#setStrategy(Strategy)
+     */
+    public int metaheuristicSearch(Tree<Vertex> tree, SplittableRandom random, BooleanSupplier stop, int[] cover)
+    {
+        return metaheuristicSearch(tree, random, stop, cover, null);
+    }
+
+
+    /**
+     * Apply the metaheuristic search algorithm of the strategy of this graph and record the moment it found its path
+     * cover.
+     *
+     * @param tree   the tree to apply the metaheuristic search algorithm on
+     * @param random the random source of the move operator and the acceptance criterion
+     * @param stop   checked every {@value #STOP_INTERVAL} moves, the search returns as soon as it is true
+     * @param cover  receives the path cover of the returned path partition number, may be null
+     * @param found  receives the value of {@link System#nanoTime()} when the cover was found, may be null
+     * @return the minimum path partition number
+     */
+    int metaheuristicSearch(Tree<Vertex> tree, SplittableRandom random, BooleanSupplier stop, int[] cover,
+                            long[] found)
+    {
+        return strategy == Strategy.TABU ?
+                new TabuSearch(this).search(tree, random, stop, cover, found) :
+                anneal(tree, random, stop, cover, found);
+    }
+
+
+    /**
+     * Apply simulated annealing. It returns an estimate for the minimum path partition number. The
+     * path cover of the tree is annealed with single edge moves whose effect on the evaluation is known before they
+     * are applied, after every n proposals the cooling schedule sets the next temperature. The search stops as soon as
+     * it reaches the lower bound of the graph.
+     *
+     * @param tree   the tree to apply the metaheuristic search algorithm on
+     * @param random the random source of the move operator and the acceptance criterion
+     * @param stop   checked every {@value #STOP_INTERVAL} moves, the search returns as soon as it is true
+     * @param cover  receives the path cover of the returned path partition number, may be null
+     * @param found  receives the value of {@link System#nanoTime()} when the cover was found, may be null
+     * @return the minimum path partition number
+     * @see PathForest
+     * @see CoolingSchedule
+     */
+    private int anneal(Tree<Vertex> tree, SplittableRandom random, BooleanSupplier stop, int[] cover, long[] found)
+    {
+        CoolingSchedule schedule = coolingSchedule;
+        int n = getNumberOfVertices();
+        PathForest forest = tree.getPathForest(this);
+
+        int smallestPPN = forest.getNumberOfPaths();
+        forest.copyTo(cover);
+        stamp(found);
+        float evaluation = evaluate(forest.getNumberOfIsolated(), smallestPPN);
+        int bound = getPathPartitionLowerBound();
+
+        double T = schedule.getInitialTemperature();
+        int epoch = 0;
+        int stagnant = 0;
+        int reheats = 0;
+        long moves = 0;
+
+        while (T > schedule.getFinalTemperature() && smallestPPN > bound) {
+            int worse = 0;
+            int acceptedWorse = 0;
+            int accepted = 0;
+            boolean improved = false;
+
+            for (int i = 0; i < n; i++, moves++) {
+                if (moves % STOP_INTERVAL == 0 && stop.getAsBoolean()) {
+                    countEpoch(i, accepted, worse, acceptedWorse);
+                    return smallestPPN;
+                }
+                if (!forest.propose(random)) continue;
+
+                int paths = forest.getNumberOfPaths() + forest.getDeltaPaths();
+                int isolated = forest.getNumberOfIsolated() + forest.getDeltaIsolated();
+                float newEvaluation = evaluate(isolated, paths);
+
+                if (newEvaluation < evaluation) {
+                    worse++;
+                    if (random.nextDouble() >= Math.exp((newEvaluation - evaluation) / T)) continue;
+                    acceptedWorse++;
+                }
+
+                forest.apply();
+                accepted++;
+                evaluation = newEvaluation;
+                if (paths < smallestPPN) {
+                    smallestPPN = paths;
+                    forest.copyTo(cover);
+                    stamp(found);
+                    Metrics.improved(paths);
+                    improved = true;
+                    if (paths <= bound) {
+                        countEpoch(i + 1, accepted, worse, acceptedWorse);
+                        return paths;
+                    }
+                }
+            }
+
+            countEpoch(n, accepted, worse, acceptedWorse);
+            epoch++;
+            stagnant = improved ? 0 : stagnant + 1;
+            if (schedule.shouldReheat(stagnant, reheats)) {
+                T = schedule.reheat(T);
+                stagnant = 0;
+                reheats++;
+                Metrics.increment(Metrics.Counter.REHEATS);
+            } else {
+                T = schedule.cool(T, epoch, worse == 0 ? 1 : (double) acceptedWorse / worse);
+            }
+        }
+
+        return smallestPPN;
+    }
+
+
+    /**
+     * Adds the moves of an epoch to the metrics, the epoch counts them locally so the moves themselves are not slowed
+     * down.
+     *
+     * @param proposals     the number of proposals
+     * @param accepted      the number of applied moves
+     * @param worse         the number of worsening proposals
+     * @param acceptedWorse the number of applied worsening moves
+     */
+    private static void countEpoch(int proposals, int accepted, int worse, int acceptedWorse)
+    {
+        Metrics.increment(Metrics.Counter.EPOCHS);
+        Metrics.add(Metrics.Counter.PROPOSALS, proposals);
+        Metrics.add(Metrics.Counter.ACCEPTED, accepted);
+        Metrics.add(Metrics.Counter.WORSE, worse);
+        Metrics.add(Metrics.Counter.ACCEPTED_WORSE, acceptedWorse);
+    }
+
+
+    /**
+     * Copies the path cover of a tree and stamps the moment it was found if buffers are given.
+     *
+     * @param tree  the tree, its path partition number was just computed
+     * @param cover the buffer or null
+     * @param found the buffer of the moment or null
+     */
+    private static void snapshot(Tree<?> tree, int[] cover, long[] found)
+    {
+        if (cover != null) tree.copyPathCoverTo(cover);
+        stamp(found);
+    }
+
+
+    /**
+     * Stores the current value of {@link System#nanoTime()} if a buffer is given, a search calls this whenever it
+     * finds a path cover with fewer paths.
+     *
+     * @param found the buffer or null
+     */
+    static void stamp(long[] found)
+    {
+        if (found != null) found[0] = System.nanoTime();
+    }
+
+
+    /**
+     * Evaluating a tree means calculating the density, connectivity and isolated vertices.
+     *
+     * @param tree the tree to evaluate
+     * @param ppn  the path partition number of the tree
+     * @return the evaluation of the tree
+     * @see AbstractGraph#metaheuristicSearch(Tree, SplittableRandom, BooleanSupplier)
+     */
+    @SuppressWarnings("unused")
+    public float evaluate(Tree<Vertex> tree, int ppn)
+    {
+        return evaluate(tree.getNumberOfEdges(), tree.getNumberOfIsolated(), ppn);
+    }
+
+
+    /**
+     * Evaluates a path cover from its counts, the delta moves use this to evaluate a move before applying it. A path
+     * cover with p paths has n - p edges, so the density term would reward more paths, it is left out.
+     *
+     * @param isolated the number of isolated vertices
+     * @param ppn      the path partition number
+     * @return the evaluation
+     * @see AbstractGraph#evaluate(Tree, int)
+     */
+    float evaluate(int isolated, int ppn)
+    {
+        return -(float) ppn - (float) isolated / getNumberOfVertices();
+    }
+
+
+    /**
+     * Evaluates a tree from its counts.
+     *
+     * @param edges    the number of edges of the tree
+     * @param isolated the number of isolated vertices
+     * @param ppn      the path partition number
+     * @return the evaluation
+     * @see AbstractGraph#evaluate(Tree, int)
+     */
+    private float evaluate(int edges, int isolated, int ppn)
+    {
+        float density = (float) getNumberOfEdges() / edges;
+        float isolation = (float) isolated / getNumberOfVertices();
+
+        return density - (float) ppn - isolation;
+    }
+}
@@ -0,0 +1,203 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Solves the graphs of a directory in parallel and writes one line per graph to a csv file. The graphs are handed to
+ * a work-stealing pool from the largest file to the smallest, so the long running instances start first and do not
+ * end up as the tail of the run. Every line is written and flushed as soon as its graph is solved, so a run that is
+ * interrupted can be resumed: the graphs that already have a line in the output file are skipped and the new lines
+ * are appended.
+ * <p>
+ * The graphs run in parallel, so every graph is solved on a single thread.
+ *
+ * @author Seppe Degryse
+ * @version 1.2
+ */
+public class BatchSolver {
+
+    private final File directory;
+
+    private final File output;
+
+    private final int threads;
+
+    private final boolean cache;
+
+
+    /**
+     * @param directory the directory with the graph files
+     * @param output    the csv file, it is appended to if it exists
+     * @param threads   the number of graphs solved at the same time
+     * @throws IllegalArgumentException if the number of threads is smaller than one
+     */
+    public BatchSolver(File directory, File output, int threads) throws IllegalArgumentException
+    {
+        this(directory, output, threads, false);
+    }
+
+
+    /**
+     * @param directory the directory with the graph files
+     * @param output    the csv file, it is appended to if it exists
+     * @param threads   the number of graphs solved at the same time
+     * @param cache     true to load the graphs from their binary caches and write the missing ones next to the files
+     * @throws IllegalArgumentException if the number of threads is smaller than one
+     * @see GraphCache
+     */
+    public BatchSolver(File directory, File output, int threads, boolean cache) throws IllegalArgumentException
+    {
+        if (threads < 1)
+            throw new IllegalArgumentException("At least one thread is needed!");
+
+        this.directory = directory;
+        this.output = output;
+        this.threads = threads;
+        this.cache = cache;
+    }
+
+
+    /**
+     * Solves a graph, the returned fields are written after the name of the graph.
+     */
+    @FunctionalInterface
+    public interface Task {
+
+        /**
+         * @param name  the file name of the graph
+         * @param graph the graph
+         * @return the comma separated fields of the line of the graph
+         */
+        String solve(String name, GraphInterface<Integer> graph);
+    }
+
+
+    /**
+     * Solves the graphs that do not have a line in the output file yet. A graph that fails is reported and gets no
+     * line, so a resumed run tries it again.
+     *
+     * @param names the file names of the graphs in the directory
+     * @param task  solves a single graph
+     * @return the number of graphs that were solved by this run
+     * @throws IOException if the output file can not be read or written
+     */
+    public int solve(List<String> names, Task task) throws IOException
+    {
+        Set<String> done = readCompleted(output);
+        List<String> todo = new ArrayList<>();
+        for (String name : names) {
+            if (!done.contains(name) && !todo.contains(name)) todo.add(name);
+        }
+        todo.sort(Comparator.comparingLong((String name) -> new File(directory, name).length()).reversed());
+
+        AtomicInteger solved = new AtomicInteger();
+        int total = todo.size();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(output, true))) {
+            List<Future<?>> futures = new ArrayList<>(total);
+            // a single submitting thread shares one queue, the workers take from it in the order of submission
+            for (String name : todo) {
+                futures.add(pool.submit(() -> {
+                    String line = run(name, task);
+                    if (line == null) return;
+                    write(writer, line);
+                    System.err.println(solved.incrementAndGet() + " /" + total + " " + name);
+                }));
+            }
+
+            for (Future<?> future : futures)
+                future.get();
+
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException)
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            throw new RuntimeException("A graph failed!", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the graphs!", e);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        return solved.get();
+    }
+
+
+    /**
+     * Reads and solves a single graph.
+     *
+     * @return the line of the graph, or null if it failed
+     */
+    private String run(String name, Task task)
+    {
+        try {
+            GraphInterface<Integer> graph = Constructor.createGraphFromFile(new File(directory, name).getPath(), cache);
+            return name + "," + task.solve(name, graph);
+        } catch (RuntimeException e) {
+            System.err.println("Skipped " + name + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+
+    /**
+     * Writes and flushes a line, the writer is shared by the workers.
+     */
+    private static void write(BufferedWriter writer, String line)
+    {
+        synchronized (writer) {
+            try {
+                writer.write(line);
+                writer.newLine();
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+
+    /**
+     * Returns the names in the first column of a csv file. A last line without a line break was cut off by an
+     * interrupted run, it is removed from the file so its graph is solved again.
+     *
+     * @param file the csv file
+     * @return the names, empty if the file does not exist
+     * @throws IOException if the file can not be read or truncated
+     */
+    public static Set<String> readCompleted(File file) throws IOException
+    {
+        Set<String> names = new HashSet<>();
+        if (!file.exists()) return names;
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        int end = bytes.length;
+        while (end > 0 && bytes[end - 1] != '\n') end--;
+        if (end < bytes.length) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(end);
+            }
+        }
+
+        for (String line : new String(bytes, 0, end, StandardCharsets.UTF_8).split("\r?\n")) {
+            int comma = line.indexOf(',');
+            if (comma > 0) names.add(line.substring(0, comma));
+        }
+        return names;
+    }
+}
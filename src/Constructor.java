@@ -1,67 +1,207 @@
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.Scanner;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 
 public class Constructor {
 
     /**
-     * Constructs a graph from a file.
+     * Constructs a graph from a file. The graph is stored in compressed sparse row format, a dense graph with its
+     * adjacency matrix as well. The file is always parsed and no cache is read or written.
      *
      * @param path the path to the file describing the graph
      * @return the constructed graph;
-     * @throws RuntimeException if the file is not found
+     * @throws RuntimeException if the file is not found or can not be read
      * @throws RuntimeException if the constructed graph does not match the expected values
+     * @see CsrGraph
+     * @see DenseGraph
+     * @see GraphCache
      */
     public static GraphInterface<Integer> createGraphFromFile(String path)
     {
-        Graph<Integer> graph = new Graph<>();
+        return createGraphFromFile(path, false);
+    }
+
+
+    /**
+     * Constructs a graph from a file. The graph is stored in compressed sparse row format, a dense graph with its
+     * adjacency matrix as well.
+     *
+     * @param path  the path to the file describing the graph
+     * @param cache true to load the graph from its binary cache and write the cache if it is missing or stale
+     * @return the constructed graph;
+     * @throws RuntimeException if the file is not found or can not be read
+     * @throws RuntimeException if the constructed graph does not match the expected values
+     * @see CsrGraph
+     * @see DenseGraph
+     * @see GraphCache
+     */
+    public static GraphInterface<Integer> createGraphFromFile(String path, boolean cache)
+    {
+        if (cache) {
+            CsrGraph graph = GraphCache.load(path);
+            if (graph != null) return dense(graph);
+        }
 
         int vertices;
         int edges;
+        int[] sources;
+        int[] destinations;
+        int count = 0;
 
-        try {
-            File file = new File(path);
-            Scanner reader = new Scanner(file);
-
-            String line = reader.nextLine();
-            int[] data = extractIntegers(line);
-            vertices = data[0];
-            edges = data[1];
+        try (IntReader reader = new IntReader(path)) {
+            vertices = reader.nextInt();
+            edges = reader.nextInt();
 
-            while (reader.hasNextLine()) {
-                line = reader.nextLine();
-                data = extractIntegers(line);
+            sources = new int[edges];
+            destinations = new int[edges];
 
-                graph.addEdge(data[0], data[1]);
+            while (reader.hasNext()) {
+                if (count == sources.length) {
+                    sources = Arrays.copyOf(sources, 2 * count + 1);
+                    destinations = Arrays.copyOf(destinations, 2 * count + 1);
+                }
+                sources[count] = reader.nextInt();
+                destinations[count] = reader.nextInt();
+                count++;
             }
 
-        } catch (FileNotFoundException e) {
+        } catch (NoSuchFileException e) {
             throw new RuntimeException("File " + path + " not found!");
+        } catch (IOException e) {
+            throw new RuntimeException("File " + path + " could not be read!", e);
         }
 
+        CsrGraph graph = CsrGraph.fromEdges(sources, destinations, count);
+
         if (vertices != graph.getNumberOfVertices() ||
                 edges != graph.getNumberOfEdges())
             throw new RuntimeException("Construction failed, number of edges or vertices don't match expected values!");
 
-        return graph;
+        if (cache) {
+            try {
+                GraphCache.store(path, graph);
+            } catch (IOException e) {
+                // the cache only saves time, the graph is still returned
+            }
+        }
+
+        return dense(graph);
     }
 
 
     /**
-     * Extract two integers from a string seperated with one space
+     * Stores a graph with its adjacency matrix if it is dense enough.
      *
-     * @param line the line containing the two integers
-     * @return a array with two integers
+     * @param graph the graph
+     * @return the dense graph, or the graph itself if it is sparse
+     * @see DenseGraph#DENSITY
      */
-    private static int[] extractIntegers(String line)
+    private static CsrGraph dense(CsrGraph graph)
     {
-        String[] strings = line.split(" ");
-        int[] numbers = new int[2];
+        return DenseGraph.isDense(graph) ? new DenseGraph(graph) : graph;
+    }
+
+
+    /**
+     * Reads whitespace separated integers from a file. The file is read in blocks through a channel and the digits
+     * are parsed straight from the bytes, no strings are created.
+     */
+    private static class IntReader implements Closeable {
+
+        private final FileChannel channel;
+
+        private final byte[] bytes = new byte[1 << 16];
+
+        private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
 
-        numbers[0] = Integer.parseInt(strings[0]);
-        numbers[1] = Integer.parseInt(strings[1]);
+        private int position = 0;
 
-        return numbers;
+        private int limit = 0;
+
+
+        IntReader(String path) throws IOException
+        {
+            channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+        }
+
+
+        /**
+         * Skips whitespace and returns whether another integer follows.
+         */
+        boolean hasNext() throws IOException
+        {
+            while (true) {
+                if (position == limit && !fill()) return false;
+                if (bytes[position] > ' ') return true;
+                position++;
+            }
+        }
+
+
+        /**
+         * Parses the next integer.
+         *
+         * @return the integer
+         * @throws IOException           if the file ends before the integer
+         * @throws NumberFormatException if the next token is not an integer
+         */
+        int nextInt() throws IOException
+        {
+            if (!hasNext())
+                throw new IOException("Unexpected end of file!");
+
+            boolean negative = bytes[position] == '-';
+            if (negative) position++;
+
+            int value = 0;
+            int digits = 0;
+            while (position < limit || fill()) {
+                int c = bytes[position];
+                if (c < '0' || c > '9') {
+                    if (c > ' ') throw new NumberFormatException("Unexpected character '" + (char) c + "'!");
+                    break;
+                }
+                value = 10 * value + (c - '0');
+                digits++;
+                position++;
+            }
+
+            if (digits == 0)
+                throw new NumberFormatException("Expected a number!");
+
+            return negative ? -value : value;
+        }
+
+
+        /**
+         * Reads the next block of the file.
+         *
+         * @return false if the end of the file is reached
+         */
+        private boolean fill() throws IOException
+        {
+            int read;
+            do {
+                buffer.clear();
+                read = channel.read(buffer);
+            } while (read == 0);
+
+            position = 0;
+            limit = Math.max(read, 0);
+            return read > 0;
+        }
+
+
+        @Override
+        public void close() throws IOException
+        {
+            channel.close();
+        }
     }
 }
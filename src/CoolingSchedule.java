@@ -0,0 +1,261 @@
+/**
+ * The temperature schedule of the metaheuristic. The search runs in epochs of n proposed moves, after every epoch it
+ * asks the schedule for the next temperature, and it stops when the temperature drops to the final temperature. A
+ * schedule can reheat the search when the best solution has not improved for a number of epochs. Schedules do not
+ * keep state, so a single schedule can be shared by all restarts.
+ *
+ * @author Seppe Degryse
+ * @version 1.0
+ * @see AbstractGraph#setCoolingSchedule(CoolingSchedule)
+ */
+public interface CoolingSchedule {
+
+    /**
+     * @return the temperature of the first epoch
+     */
+    double getInitialTemperature();
+
+
+    /**
+     * @return the temperature at which the search stops
+     */
+    double getFinalTemperature();
+
+
+    /**
+     * Returns the temperature of the next epoch.
+     *
+     * @param temperature the temperature of the epoch that just ended
+     * @param epoch       the number of epochs that ended so far
+     * @param acceptance  the fraction of the proposed worsening moves that were accepted in the epoch
+     * @return the temperature of the next epoch
+     */
+    double cool(double temperature, int epoch, double acceptance);
+
+
+    /**
+     * Returns whether the search has to be reheated.
+     *
+     * @param stagnantEpochs the number of epochs since the best solution last improved
+     * @param reheats        the number of times the search was reheated so far
+     */
+    default boolean shouldReheat(int stagnantEpochs, int reheats)
+    {
+        return false;
+    }
+
+
+    /**
+     * Returns the temperature after reheating.
+     *
+     * @param temperature the current temperature
+     */
+    default double reheat(double temperature)
+    {
+        return getInitialTemperature();
+    }
+
+
+    /**
+     * Returns this schedule with reheating on stagnation.
+     *
+     * @param stagnantEpochs the number of epochs without improvement after which the search is reheated
+     * @param maxReheats     the maximum number of reheats, so the search always ends
+     * @param fraction       the reheated temperature as a fraction of the initial temperature
+     * @return the schedule with reheating
+     * @throws IllegalArgumentException if a parameter is out of range
+     */
+    default CoolingSchedule withReheating(int stagnantEpochs, int maxReheats, double fraction)
+            throws IllegalArgumentException
+    {
+        if (stagnantEpochs < 1 || maxReheats < 0 || fraction <= 0 || fraction > 1)
+            throw new IllegalArgumentException("Invalid reheating parameters!");
+
+        CoolingSchedule schedule = this;
+        return new CoolingSchedule() {
+            public double getInitialTemperature() { return schedule.getInitialTemperature(); }
+            public double getFinalTemperature() { return schedule.getFinalTemperature(); }
+            public double cool(double temperature, int epoch, double acceptance)
+            {
+                return schedule.cool(temperature, epoch, acceptance);
+            }
+            public boolean shouldReheat(int stagnant, int reheats)
+            {
+                return stagnant >= stagnantEpochs && reheats < maxReheats;
+            }
+            public double reheat(double temperature)
+            {
+                return Math.max(temperature, fraction * schedule.getInitialTemperature());
+            }
+        };
+    }
+
+
+    /**
+     * T(k+1) = alpha * T(k). With the defaults of the original search, 100, 0.1 and 0.93, this takes 96 epochs.
+     *
+     * @param initial the initial temperature
+     * @param last    the final temperature
+     * @param alpha   the cooling factor, between 0 and 1
+     * @throws IllegalArgumentException if a parameter is out of range
+     */
+    static CoolingSchedule geometric(double initial, double last, double alpha) throws IllegalArgumentException
+    {
+        check(initial, last);
+        if (alpha <= 0 || alpha >= 1)
+            throw new IllegalArgumentException("The cooling factor has to lie between 0 and 1!");
+
+        return new Fixed(initial, last) {
+            public double cool(double temperature, int epoch, double acceptance) { return alpha * temperature; }
+        };
+    }
+
+
+    /**
+     * T(k+1) = T(k) - (initial - last) / epochs.
+     *
+     * @param initial the initial temperature
+     * @param last    the final temperature
+     * @param epochs  the number of epochs
+     * @throws IllegalArgumentException if a parameter is out of range
+     */
+    static CoolingSchedule linear(double initial, double last, int epochs) throws IllegalArgumentException
+    {
+        check(initial, last);
+        if (epochs < 1)
+            throw new IllegalArgumentException("At least one epoch is needed!");
+
+        double step = (initial - last) / epochs;
+        return new Fixed(initial, last) {
+            public double cool(double temperature, int epoch, double acceptance) { return temperature - step; }
+        };
+    }
+
+
+    /**
+     * The schedule of Lundy and Mees, T(k+1) = T(k) / (1 + beta * T(k)), with beta chosen so it takes the given
+     * number of epochs to cool down. It spends most epochs at low temperatures.
+     *
+     * @param initial the initial temperature
+     * @param last    the final temperature
+     * @param epochs  the number of epochs
+     * @throws IllegalArgumentException if a parameter is out of range
+     */
+    static CoolingSchedule lundyMees(double initial, double last, int epochs) throws IllegalArgumentException
+    {
+        check(initial, last);
+        if (epochs < 1)
+            throw new IllegalArgumentException("At least one epoch is needed!");
+
+        double beta = (initial - last) / (epochs * initial * last);
+        return new Fixed(initial, last) {
+            public double cool(double temperature, int epoch, double acceptance)
+            {
+                return temperature / (1 + beta * temperature);
+            }
+        };
+    }
+
+
+    /**
+     * Cools with alpha while more worsening moves are accepted than the target, and with the square root of alpha
+     * otherwise, so the search spends its epochs where the acceptance drops.
+     *
+     * @param initial the initial temperature
+     * @param last    the final temperature
+     * @param alpha   the cooling factor, between 0 and 1
+     * @param target  the targeted acceptance of worsening moves, between 0 and 1
+     * @throws IllegalArgumentException if a parameter is out of range
+     */
+    static CoolingSchedule adaptive(double initial, double last, double alpha, double target)
+            throws IllegalArgumentException
+    {
+        check(initial, last);
+        if (alpha <= 0 || alpha >= 1 || target < 0 || target > 1)
+            throw new IllegalArgumentException("The cooling factor and target have to lie between 0 and 1!");
+
+        double slow = Math.sqrt(alpha);
+        return new Fixed(initial, last) {
+            public double cool(double temperature, int epoch, double acceptance)
+            {
+                return (acceptance > target ? alpha : slow) * temperature;
+            }
+        };
+    }
+
+
+    /**
+     * Returns a schedule by name: geometric, linear, lundy-mees or adaptive, all with the temperatures of the
+     * original search. The suffix +reheat adds reheating.
+     *
+     * @param name the name of the schedule
+     * @throws IllegalArgumentException if there is no schedule with the name
+     */
+    static CoolingSchedule of(String name) throws IllegalArgumentException
+    {
+        boolean reheat = name.endsWith("+reheat");
+        String base = reheat ? name.substring(0, name.length() - "+reheat".length()) : name;
+
+        CoolingSchedule schedule;
+        switch (base) {
+            case "geometric":
+                schedule = geometric(100, 0.1, 0.93);
+                break;
+            case "linear":
+                schedule = linear(100, 0.1, 96);
+                break;
+            case "lundy-mees":
+                schedule = lundyMees(100, 0.1, 96);
+                break;
+            case "adaptive":
+                schedule = adaptive(100, 0.1, 0.93, 0.5);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown cooling schedule " + name + "!");
+        }
+
+        return reheat ? schedule.withReheating(10, 5, 0.1) : schedule;
+    }
+
+
+    /**
+     * @throws IllegalArgumentException if the temperatures are not positive or not decreasing
+     */
+    static void check(double initial, double last) throws IllegalArgumentException
+    {
+        if (last <= 0 || initial <= last)
+            throw new IllegalArgumentException("Temperatures have to be positive and decreasing!");
+    }
+
+
+    /**
+     * A schedule with fixed initial and final temperatures.
+     */
+    abstract class Fixed implements CoolingSchedule {
+
+        private final double initial;
+
+        private final double last;
+
+
+        Fixed(double initial, double last)
+        {
+            this.initial = initial;
+            this.last = last;
+        }
+
+
+        @Override
+        public double getInitialTemperature()
+        {
+            return initial;
+        }
+
+
+        @Override
+        public double getFinalTemperature()
+        {
+            return last;
+        }
+    }
+}
@@ -0,0 +1,387 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * An immutable graph stored in compressed sparse row format. The vertices are remapped to the indices 0..n-1 in the
+ * order in which they first appear, the neighbours of the vertex with index i are the indices
+ * targets[offsets[i]] up to targets[offsets[i + 1]] (exclusive), sorted in ascending order.
+ *
+ * @author Seppe Degryse
+ * @version 1.3
+ * @see Constructor#createGraphFromFile(String)
+ */
+public class CsrGraph extends AbstractGraph<Integer> {
+
+    private final int[] labels;
+
+    private final int[] indices;
+
+    private final int[] offsets;
+
+    private final int[] targets;
+
+    private final int numberOfEdges;
+
+    private final List<Integer> vertexView;
+
+
+    CsrGraph(int[] labels, int[] indices, int[] offsets, int[] targets, int numberOfEdges)
+    {
+        this.labels = labels;
+        this.indices = indices;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.numberOfEdges = numberOfEdges;
+        this.vertexView = new IndexView(labels, 0, labels.length, false);
+    }
+
+
+    /**
+     * Creates a graph that shares the arrays of another one.
+     *
+     * @param graph the graph to share the arrays of
+     */
+    CsrGraph(CsrGraph graph)
+    {
+        this(graph.labels, graph.indices, graph.offsets, graph.targets, graph.numberOfEdges);
+    }
+
+
+    /**
+     * Builds a graph from an edge list. The edge with index i connects sources[i] and destinations[i]. A repeated
+     * edge is stored once and a self-loop adds its vertex but no neighbour, so no row holds a neighbour twice or its
+     * own vertex. The number of edges of the graph is the number of edges in the list, as the header of a graph file
+     * counts them.
+     *
+     * @param sources      the first end point of every edge
+     * @param destinations the second end point of every edge
+     * @param edges        the number of edges stored in the arrays
+     * @return the constructed graph
+     * @throws IllegalArgumentException if a vertex is negative
+     */
+    public static CsrGraph fromEdges(int[] sources, int[] destinations, int edges) throws IllegalArgumentException
+    {
+        int maxLabel = -1;
+        for (int i = 0; i < edges; i++) {
+            if (sources[i] < 0 || destinations[i] < 0)
+                throw new IllegalArgumentException("Vertices must be non-negative!");
+            maxLabel = Math.max(maxLabel, Math.max(sources[i], destinations[i]));
+        }
+
+        int[] indices = new int[maxLabel + 1];
+        Arrays.fill(indices, -1);
+        int[] labels = new int[maxLabel + 1];
+        int n = 0;
+        int[] degrees = new int[maxLabel + 1];
+
+        for (int i = 0; i < edges; i++) {
+            int u = sources[i];
+            int v = destinations[i];
+            if (indices[u] < 0) {
+                indices[u] = n;
+                labels[n++] = u;
+            }
+            if (indices[v] < 0) {
+                indices[v] = n;
+                labels[n++] = v;
+            }
+            if (u == v) continue;
+            degrees[indices[u]]++;
+            degrees[indices[v]]++;
+        }
+
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; i++)
+            offsets[i + 1] = offsets[i] + degrees[i];
+
+        int[] targets = new int[offsets[n]];
+        int[] next = Arrays.copyOf(offsets, n);
+        for (int i = 0; i < edges; i++) {
+            int u = indices[sources[i]];
+            int v = indices[destinations[i]];
+            if (u == v) continue;
+            targets[next[u]++] = v;
+            targets[next[v]++] = u;
+        }
+
+        // the sorted rows are compacted in place, a repeated neighbour is kept once
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            int begin = offsets[i];
+            Arrays.sort(targets, begin, offsets[i + 1]);
+            offsets[i] = size;
+            for (int k = begin; k < offsets[i + 1]; k++) {
+                if (k == begin || targets[k] != targets[k - 1]) targets[size++] = targets[k];
+            }
+        }
+        offsets[n] = size;
+        if (size < targets.length) targets = Arrays.copyOf(targets, size);
+
+        return new CsrGraph(Arrays.copyOf(labels, n), indices, offsets, targets, edges);
+    }
+
+
+    /**
+     * Builds a graph from its compressed sparse row arrays, the arrays are used as they are.
+     *
+     * @param labels  the vertex of every index
+     * @param offsets the row offsets, of length labels.length + 1
+     * @param targets the neighbour indices of every vertex, stored row after row
+     * @param edges   the number of edges
+     * @return the graph
+     * @throws IllegalArgumentException if the arrays do not describe a graph
+     */
+    static CsrGraph fromArrays(int[] labels, int[] offsets, int[] targets, int edges) throws IllegalArgumentException
+    {
+        int n = labels.length;
+        if (offsets.length != n + 1 || offsets[0] != 0 || offsets[n] != targets.length)
+            throw new IllegalArgumentException("Offsets do not match the vertices and targets!");
+
+        int maxLabel = -1;
+        for (int label : labels) {
+            if (label < 0)
+                throw new IllegalArgumentException("Vertices must be non-negative!");
+            maxLabel = Math.max(maxLabel, label);
+        }
+
+        int[] indices = new int[maxLabel + 1];
+        Arrays.fill(indices, -1);
+        for (int i = 0; i < n; i++)
+            indices[labels[i]] = i;
+
+        return new CsrGraph(labels, indices, offsets, targets, edges);
+    }
+
+
+    /**
+     * Returns the index of a vertex.
+     *
+     * @param vertex the vertex
+     * @return the index of the vertex or -1 if it is not part of the graph
+     */
+    public int indexOf(int vertex)
+    {
+        return vertex >= 0 && vertex < indices.length ? indices[vertex] : -1;
+    }
+
+
+    /**
+     * Returns the index of a vertex.
+     *
+     * @param vertex the vertex
+     * @return the index of the vertex or -1 if it is not part of the graph
+     */
+    @Override
+    public int indexOf(Integer vertex)
+    {
+        return vertex != null ? indexOf(vertex.intValue()) : -1;
+    }
+
+
+    /**
+     * Returns the vertex with a given index.
+     *
+     * @param index the index of the vertex
+     * @return the vertex
+     */
+    public int labelOf(int index)
+    {
+        return labels[index];
+    }
+
+
+    /**
+     * Returns the vertex with a given index.
+     *
+     * @param index the index of the vertex
+     */
+    @Override
+    public Integer vertexAt(int index)
+    {
+        return labels[index];
+    }
+
+
+    /**
+     * Returns the degree of the vertex with a given index.
+     *
+     * @param index the index of the vertex
+     */
+    @Override
+    public int degreeAt(int index)
+    {
+        return offsets[index + 1] - offsets[index];
+    }
+
+
+    /**
+     * Returns the index of the k-th neighbour of the vertex with a given index.
+     *
+     * @param index the index of the vertex
+     * @param k     the position of the neighbour, between 0 and the degree of the vertex
+     */
+    @Override
+    public int neighborIndexAt(int index, int k)
+    {
+        return targets[offsets[index] + k];
+    }
+
+
+    /**
+     * @return the row offsets, the neighbours of index i start at position offsets[i] in the targets
+     * @implNote The array is shared, it must not be modified.
+     */
+    int[] getOffsets()
+    {
+        return offsets;
+    }
+
+
+    /**
+     * @return the neighbour indices of every vertex, stored row after row
+     * @implNote The array is shared, it must not be modified.
+     */
+    int[] getTargets()
+    {
+        return targets;
+    }
+
+
+    /**
+     * @return the vertices of the graph, ordered by index
+     * @implNote The array is shared, it must not be modified.
+     */
+    int[] getLabels()
+    {
+        return labels;
+    }
+
+
+    /**
+     * @return a collection of integers representing the vertices of the graph.
+     */
+    @Override
+    public Collection<Integer> getVertices()
+    {
+        return vertexView;
+    }
+
+
+    /**
+     * Returns the number of edges present in the graph.
+     */
+    @Override
+    public int getNumberOfEdges()
+    {
+        return numberOfEdges;
+    }
+
+
+    /**
+     * Returns the number of nodes present in the graph.
+     */
+    @Override
+    public int getNumberOfVertices()
+    {
+        return labels.length;
+    }
+
+
+    /**
+     * Returns whether node u and node v are neighbours.
+     *
+     * @param u the first vertex
+     * @param v the second vertex
+     */
+    @Override
+    public boolean areNeighbors(Integer u, Integer v)
+    {
+        int i = indexOf(u);
+        int j = indexOf(v);
+        return i >= 0 && j >= 0 && areNeighborsAt(i, j);
+    }
+
+
+    /**
+     * Returns whether the vertices with the given indices are neighbours, by a binary search of the row of the first.
+     *
+     * @param i the index of the first vertex
+     * @param j the index of the second vertex
+     */
+    public boolean areNeighborsAt(int i, int j)
+    {
+        return Arrays.binarySearch(targets, offsets[i], offsets[i + 1], j) >= 0;
+    }
+
+
+    /**
+     * Returns the degree of node u.
+     *
+     * @param u the vertex to get the degree of
+     */
+    @Override
+    public int getDegree(Integer u)
+    {
+        int i = indexOf(u);
+        return i >= 0 ? degreeAt(i) : 0;
+    }
+
+
+    /**
+     * Returns a collection of integers representing the neighbours of node u. The collection is a view on the
+     * underlying arrays, no copy is made.
+     *
+     * @param u the vertex to get the neighbours of
+     */
+    @Override
+    public Collection<Integer> getNeighborsOf(Integer u)
+    {
+        int i = indexOf(u);
+        if (i < 0) return Collections.emptyList();
+
+        return new IndexView(targets, offsets[i], offsets[i + 1], true);
+    }
+
+
+    /**
+     * A read-only list of vertices backed by a slice of an int array.
+     */
+    private class IndexView extends AbstractList<Integer> {
+
+        private final int[] array;
+
+        private final int from;
+
+        private final int to;
+
+        private final boolean mapToLabels;
+
+
+        IndexView(int[] array, int from, int to, boolean mapToLabels)
+        {
+            this.array = array;
+            this.from = from;
+            this.to = to;
+            this.mapToLabels = mapToLabels;
+        }
+
+
+        @Override
+        public Integer get(int index)
+        {
+            int value = array[from + index];
+            return mapToLabels ? labels[value] : value;
+        }
+
+
+        @Override
+        public int size()
+        {
+            return to - from;
+        }
+    }
+}
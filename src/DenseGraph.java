@@ -0,0 +1,90 @@
+/**
+ * A compressed sparse row graph that also stores its adjacency matrix, one bitset row of n bits per vertex. Checking
+ * whether two vertices are neighbours takes a single bit test instead of a search of a row, and the neighbours of a
+ * vertex within a set of vertices are found 64 at a time by a bitwise and of its row with the bitset of the set.
+ * <p>
+ * From {@value #DENSITY} edges per pair of vertices on the matrix takes at most a quarter of the memory of the
+ * neighbour arrays it is stored next to, so the constructor picks this representation from that density on.
+ *
+ * @author Seppe Degryse
+ * @version 1.0
+ * @see Constructor#createGraphFromFile(String)
+ */
+public class DenseGraph extends CsrGraph {
+
+    /**
+     * The number of edges divided by the square of the number of vertices from which a graph is dense.
+     */
+    public static final double DENSITY = 0.0625;
+
+    private final int words;
+
+    // row i is stored in the words i * words up to (i + 1) * words
+    private final long[] matrix;
+
+
+    /**
+     * Creates the dense representation of a graph, the neighbour arrays are shared.
+     *
+     * @param graph the graph
+     */
+    DenseGraph(CsrGraph graph)
+    {
+        super(graph);
+        int n = getNumberOfVertices();
+        words = (n + 63) >>> 6;
+        matrix = new long[n * words];
+
+        for (int i = 0; i < n; i++) {
+            for (int k = 0; k < degreeAt(i); k++) {
+                int j = neighborIndexAt(i, k);
+                matrix[i * words + (j >>> 6)] |= 1L << j;
+            }
+        }
+    }
+
+
+    /**
+     * Returns whether a graph has enough edges to be stored as a dense graph.
+     *
+     * @param graph the graph
+     * @return true if the number of edges is at least {@value #DENSITY} times the square of the number of vertices
+     */
+    public static boolean isDense(GraphInterface<?> graph)
+    {
+        long n = graph.getNumberOfVertices();
+        return n > 0 && graph.getNumberOfEdges() >= DENSITY * n * n;
+    }
+
+
+    /**
+     * Returns whether the vertices with the given indices are neighbours.
+     *
+     * @param i the index of the first vertex
+     * @param j the index of the second vertex
+     */
+    @Override
+    public boolean areNeighborsAt(int i, int j)
+    {
+        return (matrix[i * words + (j >>> 6)] & 1L << j) != 0;
+    }
+
+
+    /**
+     * Returns the neighbour with the smallest index of a vertex that lies in a set of vertices. The neighbours of a
+     * compressed sparse row graph are sorted, so this is the first neighbour in the set in the order of the row.
+     *
+     * @param i   the index of the vertex
+     * @param set the bitset of the indices in the set, at least as many words as a row
+     * @return the index of the neighbour or -1 if no neighbour lies in the set
+     */
+    public int firstNeighborIn(int i, long[] set)
+    {
+        int offset = i * words;
+        for (int w = 0; w < words; w++) {
+            long bits = matrix[offset + w] & set[w];
+            if (bits != 0) return (w << 6) + Long.numberOfTrailingZeros(bits);
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,387 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+
+/**
+ * Solves the hamiltonian completion problem exactly. Graphs with at most {@value #MAX_DP_VERTICES} vertices are
+ * solved by dynamic programming over the subsets of the vertices: f(S, v) is the smallest number of paths that cover
+ * the set S with v the last vertex of the last path. A vertex u outside S either extends the last path, if it is a
+ * neighbour of v, or starts a new one, so every state has at most n successors and the whole table takes
+ * O(2^n (n + m)) time.
+ * <p>
+ * Larger graphs are searched by branch and bound. A path is grown from an anchor, the uncovered vertex with the fewest
+ * uncovered neighbours, first at one end and then at the other, the neighbours with the fewest uncovered neighbours
+ * are tried first. A branch is cut when the paths so far plus a bound on the uncovered vertices can not beat the best
+ * path cover, the bound counts the end points the uncovered vertices need like {@link LowerBound} does. The search
+ * starts from the path cover of a spanning tree and stops at the lower bound of the graph or after a number of nodes.
+ *
+ * @author Seppe Degryse
+ * @version 1.0
+ * @see AbstractGraph#getMetaheuristicSolution(int, int, long)
+ */
+public final class ExactSolver {
+
+    /**
+     * The largest graph that is solved by dynamic programming, the table has n 2^n entries.
+     */
+    public static final int MAX_DP_VERTICES = 16;
+
+    /**
+     * The largest graph the searches hand to the exact solver instead of running their restarts.
+     */
+    public static final int MAX_VERTICES = 32;
+
+    /**
+     * The number of nodes after which the branch and bound of the searches gives up, about a tenth of a second.
+     */
+    public static final long NODE_LIMIT = 100000;
+
+    private static final byte UNREACHED = Byte.MAX_VALUE;
+
+    private final AbstractGraph<?> graph;
+
+    private final int n;
+
+    private final long nodeLimit;
+
+    // the state of the branch and bound
+    private final boolean[] covered;
+
+    private final int[] free;
+
+    private final int[] neighbours;
+
+    private final int[] best;
+
+    private int bestPPN;
+
+    private int isolated;
+
+    private int leaves;
+
+    private int uncovered;
+
+    private int closed = 0;
+
+    private long nodes = 0;
+
+    private int bound;
+
+
+    private ExactSolver(AbstractGraph<?> graph, long nodeLimit)
+    {
+        this.graph = graph;
+        this.nodeLimit = nodeLimit;
+        n = graph.getNumberOfVertices();
+        covered = new boolean[n];
+        free = new int[n];
+        neighbours = new int[2 * n];
+        best = new int[2 * n];
+    }
+
+
+    /**
+     * Solves a graph exactly, by dynamic programming if it is small enough and by branch and bound otherwise.
+     *
+     * @param graph     the graph
+     * @param nodeLimit the number of nodes after which the branch and bound gives up
+     * @return the best path cover found, optimal unless the branch and bound gave up
+     */
+    public static Solution solve(AbstractGraph<?> graph, long nodeLimit)
+    {
+        return graph.getNumberOfVertices() <= MAX_DP_VERTICES ? solveBySubsets(graph) : branchAndBound(graph, nodeLimit);
+    }
+
+
+    /**
+     * Solves a graph by dynamic programming over the subsets of its vertices.
+     *
+     * @param graph the graph
+     * @return an optimal path cover
+     * @throws IllegalArgumentException if the graph has more than {@value #MAX_DP_VERTICES} vertices
+     */
+    public static Solution solveBySubsets(AbstractGraph<?> graph) throws IllegalArgumentException
+    {
+        long start = System.nanoTime();
+        int n = graph.getNumberOfVertices();
+        if (n > MAX_DP_VERTICES)
+            throw new IllegalArgumentException("The graph has more than " + MAX_DP_VERTICES + " vertices!");
+        if (n == 0) return new Solution(-1, null, 0, 0, -1);
+
+        int[] adjacency = new int[n];
+        for (int v = 0; v < n; v++) {
+            for (int k = 0; k < graph.degreeAt(v); k++)
+                adjacency[v] |= 1 << graph.neighborIndexAt(v, k);
+            adjacency[v] &= ~(1 << v);
+        }
+
+        int full = (1 << n) - 1;
+        byte[] f = new byte[(full + 1) * n];
+        Arrays.fill(f, UNREACHED);
+        for (int v = 0; v < n; v++)
+            f[(1 << v) * n + v] = 1;
+
+        for (int mask = 1; mask < full; mask++) {
+            int smallest = UNREACHED;
+            for (int rest = mask; rest != 0; rest &= rest - 1) {
+                int v = Integer.numberOfTrailingZeros(rest);
+                int paths = f[mask * n + v];
+                if (paths == UNREACHED) continue;
+                smallest = Math.min(smallest, paths);
+
+                for (int next = adjacency[v] & ~mask; next != 0; next &= next - 1) {
+                    int u = Integer.numberOfTrailingZeros(next);
+                    int index = (mask | 1 << u) * n + u;
+                    if (paths < f[index]) f[index] = (byte) paths;
+                }
+            }
+
+            for (int next = full & ~mask; next != 0; next &= next - 1) {
+                int u = Integer.numberOfTrailingZeros(next);
+                int index = (mask | 1 << u) * n + u;
+                if (smallest + 1 < f[index]) f[index] = (byte) (smallest + 1);
+            }
+        }
+
+        // walk the table back from the best last vertex
+        int[] neighbours = new int[2 * n];
+        Arrays.fill(neighbours, -1);
+        int mask = full;
+        int v = 0;
+        for (int u = 1; u < n; u++) {
+            if (f[full * n + u] < f[full * n + v]) v = u;
+        }
+        int ppn = f[full * n + v];
+
+        while (mask != 1 << v) {
+            int paths = f[mask * n + v];
+            int previous = mask & ~(1 << v);
+            int w = -1;
+            for (int rest = adjacency[v] & previous; rest != 0 && w < 0; rest &= rest - 1) {
+                int u = Integer.numberOfTrailingZeros(rest);
+                if (f[previous * n + u] == paths) w = u;
+            }
+            if (w >= 0) {
+                connect(neighbours, v, w);
+            } else {
+                for (int rest = previous; rest != 0 && w < 0; rest &= rest - 1) {
+                    int u = Integer.numberOfTrailingZeros(rest);
+                    if (f[previous * n + u] == paths - 1) w = u;
+                }
+            }
+            mask = previous;
+            v = w;
+        }
+
+        PathCover pathCover = PathCover.fromNeighbours(neighbours, graph);
+        return new Solution(pathCover.getHamiltonianCompletionNumber(), pathCover, System.nanoTime() - start, 0,
+                ppn - 1);
+    }
+
+
+    /**
+     * Solves a graph by branch and bound.
+     *
+     * @param graph     the graph
+     * @param nodeLimit the number of nodes after which the search gives up
+     * @return the best path cover found, its lower bound is the lower bound of the graph if the search gave up
+     */
+    public static Solution branchAndBound(AbstractGraph<?> graph, long nodeLimit)
+    {
+        long start = System.nanoTime();
+        if (graph.getNumberOfVertices() == 0) return new Solution(-1, null, 0, 0, -1);
+
+        ExactSolver solver = new ExactSolver(graph, nodeLimit);
+        boolean complete = solver.search();
+        PathCover pathCover = PathCover.fromNeighbours(solver.best, graph);
+        int hcn = pathCover.getHamiltonianCompletionNumber();
+        return new Solution(hcn, pathCover, System.nanoTime() - start, 0,
+                complete ? hcn : graph.getPathPartitionLowerBound() - 1);
+    }
+
+
+    /**
+     * Runs the branch and bound.
+     *
+     * @return true if the best path cover is optimal, false if the node limit was reached
+     */
+    private boolean search()
+    {
+        // the path cover of a spanning tree is the first incumbent
+        Tree<?> tree = graph.getInitialSpanningTree(new SplittableRandom(0));
+        bestPPN = tree.getMinimumPathPartitionNumber();
+        tree.copyPathCoverTo(best);
+        bound = graph.getPathPartitionLowerBound();
+
+        Arrays.fill(neighbours, -1);
+        uncovered = n;
+        for (int v = 0; v < n; v++) {
+            for (int k = 0; k < graph.degreeAt(v); k++) {
+                if (graph.neighborIndexAt(v, k) != v) free[v]++;
+            }
+            count(v, 1);
+        }
+
+        startPath();
+        return bestPPN <= bound || nodes < nodeLimit;
+    }
+
+
+    /**
+     * Closes the current path and starts a new one at the anchor, or records the path cover if every vertex is covered.
+     *
+     * @return true if the search has to stop
+     */
+    private boolean startPath()
+    {
+        int anchor = -1;
+        for (int v = 0; v < n; v++) {
+            if (!covered[v] && (anchor < 0 || free[v] < free[anchor])) anchor = v;
+        }
+
+        if (anchor < 0) {
+            if (closed < bestPPN) {
+                bestPPN = closed;
+                System.arraycopy(neighbours, 0, best, 0, neighbours.length);
+            }
+            return bestPPN <= bound;
+        }
+
+        closed++;
+        cover(anchor);
+        // an anchor with at most one uncovered neighbour is an end point of its path, there is no second side
+        boolean stop = free[anchor] <= 1 ? extend(anchor, -1, 1) : extend(anchor, anchor, 2);
+        uncover(anchor);
+        closed--;
+        return stop;
+    }
+
+
+    /**
+     * Extends the current path at one of its ends.
+     *
+     * @param end   the end that is extended
+     * @param other the other end if it can still be extended, or -1
+     * @param ends  the number of ends that can still be extended
+     * @return true if the search has to stop
+     */
+    private boolean extend(int end, int other, int ends)
+    {
+        if (++nodes >= nodeLimit) return true;
+        int remaining = Math.max(isolated + (leaves + 1) / 2, uncovered > 0 ? 1 : 0);
+        if (closed + Math.max(0, remaining - ends) >= bestPPN) return false;
+
+        // the uncovered neighbours of the end, those with the fewest uncovered neighbours first
+        int[] candidates = new int[free[end]];
+        int size = 0;
+        for (int k = 0; k < graph.degreeAt(end); k++) {
+            int u = graph.neighborIndexAt(end, k);
+            if (!covered[u] && u != end && !contains(candidates, size, u)) candidates[size++] = u;
+        }
+        sortByFree(candidates, size);
+
+        for (int i = 0; i < size; i++) {
+            int u = candidates[i];
+            connect(neighbours, end, u);
+            cover(u);
+            boolean stop = extend(u, other, ends);
+            uncover(u);
+            disconnect(end, u);
+            if (stop) return true;
+        }
+
+        // stop extending this end, continue at the other end or close the path
+        return other >= 0 ? extend(other, -1, 1) : startPath();
+    }
+
+
+    /**
+     * Marks a vertex as covered and updates the number of uncovered neighbours of its neighbours.
+     */
+    private void cover(int v)
+    {
+        count(v, -1);
+        covered[v] = true;
+        uncovered--;
+        for (int k = 0; k < graph.degreeAt(v); k++) {
+            int u = graph.neighborIndexAt(v, k);
+            if (covered[u]) continue;
+            count(u, -1);
+            free[u]--;
+            count(u, 1);
+        }
+    }
+
+
+    private void uncover(int v)
+    {
+        for (int k = 0; k < graph.degreeAt(v); k++) {
+            int u = graph.neighborIndexAt(v, k);
+            if (covered[u]) continue;
+            count(u, -1);
+            free[u]++;
+            count(u, 1);
+        }
+        covered[v] = false;
+        uncovered++;
+        count(v, 1);
+    }
+
+
+    /**
+     * Adds an uncovered vertex to the counts of isolated vertices and leaves, or removes it with a sign of -1.
+     */
+    private void count(int v, int sign)
+    {
+        if (free[v] == 0) isolated += sign;
+        else if (free[v] == 1) leaves += sign;
+    }
+
+
+    private void sortByFree(int[] candidates, int size)
+    {
+        for (int i = 1; i < size; i++) {
+            int u = candidates[i];
+            int j = i - 1;
+            while (j >= 0 && free[candidates[j]] > free[u]) {
+                candidates[j + 1] = candidates[j];
+                j--;
+            }
+            candidates[j + 1] = u;
+        }
+    }
+
+
+    private static boolean contains(int[] array, int size, int value)
+    {
+        for (int i = 0; i < size; i++) {
+            if (array[i] == value) return true;
+        }
+        return false;
+    }
+
+
+    private void disconnect(int u, int v)
+    {
+        neighbours[2 * u + (neighbours[2 * u + 1] == v ? 1 : 0)] = -1;
+        if (neighbours[2 * u] < 0) {
+            neighbours[2 * u] = neighbours[2 * u + 1];
+            neighbours[2 * u + 1] = -1;
+        }
+        neighbours[2 * v + (neighbours[2 * v + 1] == u ? 1 : 0)] = -1;
+        if (neighbours[2 * v] < 0) {
+            neighbours[2 * v] = neighbours[2 * v + 1];
+            neighbours[2 * v + 1] = -1;
+        }
+    }
+
+
+    /**
+     * Adds an edge to a path cover snapshot.
+     */
+    private static void connect(int[] neighbours, int u, int v)
+    {
+        neighbours[2 * u + (neighbours[2 * u] < 0 ? 0 : 1)] = v;
+        neighbours[2 * v + (neighbours[2 * v] < 0 ? 0 : 1)] = u;
+    }
+}
@@ -2,32 +2,41 @@ import java.util.*;
 
 
 /**
- * A class representing a graph.
+ * A class representing a graph. Every vertex gets an index in the order in which it is added, the neighbours of a
+ * vertex are stored as an array of indices.
  *
  * @param <Vertex> the type of the vertices
  * @author Seppe Degryse
- * @version 1.4
+ * @version 1.9
  */
-public class Graph<Vertex> implements GraphInterface<Vertex> {
+public class Graph<Vertex> extends AbstractGraph<Vertex> {
 
-    private final HashMap<Vertex, HashSet<Vertex>> adjacencyList;
+    private final HashMap<Vertex, Integer> indices;
 
     private final ArrayList<Vertex> vertices;
 
+    private int[][] adjacencyList;
+
+    private int[] degrees;
+
+    private int numberOfVertices = 0;
+
     private int numberOfEdges = 0;
 
 
     Graph()
     {
-        adjacencyList = new HashMap<>();
-        vertices = new ArrayList<>();
+        this(16);
     }
 
 
     Graph(int size)
     {
-        adjacencyList = new HashMap<>(size, 1);
+        size = Math.max(size, 1);
+        indices = new HashMap<>(size, 1);
         vertices = new ArrayList<>(size);
+        adjacencyList = new int[size][];
+        degrees = new int[size];
     }
 
 
@@ -39,16 +48,10 @@ public class Graph<Vertex> implements GraphInterface<Vertex> {
      */
     public void addEdge(Vertex start, Vertex end)
     {
-        if (!adjacencyList.containsKey(start)) {
-            adjacencyList.put(start, new HashSet<>());
-            vertices.add(start);
-        }
-        if (!adjacencyList.containsKey(end)) {
-            adjacencyList.put(end, new HashSet<>());
-            vertices.add(end);
-        }
-        adjacencyList.get(start).add(end);
-        adjacencyList.get(end).add(start);
+        int i = addVertex(start);
+        int j = addVertex(end);
+
+        if (!areNeighborsAt(i, j)) link(i, j);
 
         numberOfEdges++;
     }
@@ -62,270 +65,313 @@ public class Graph<Vertex> implements GraphInterface<Vertex> {
      */
     public void removeEdge(Vertex start, Vertex end)
     {
-        adjacencyList.get(start).remove(end);
-        adjacencyList.get(end).remove(start);
+        unlink(indexOf(start), indexOf(end));
 
         numberOfEdges--;
     }
 
 
     /**
-     * @return a collection of integers representing the vertices of the graph.
+     * Adds a vertex to the graph if it is not present yet.
+     *
+     * @param vertex the vertex to add
+     * @return the index of the vertex
      */
-    @Override
-    public Collection<Vertex> getVertices()
+    protected int addVertex(Vertex vertex)
     {
-        return vertices;
+        Integer index = indices.get(vertex);
+        if (index != null) return index;
+
+        invalidateLowerBound();
+        indices.put(vertex, numberOfVertices);
+        vertices.add(vertex);
+        ensureCapacity(numberOfVertices + 1);
+        return numberOfVertices++;
     }
 
 
     /**
-     * @return a collection of integers representing the vertices of the graph
+     * Makes room for the adjacency of at least the given number of vertices.
+     *
+     * @param capacity the number of vertices
      */
-    public Collection<Vertex> getVerticesSet()
+    protected void ensureCapacity(int capacity)
     {
-        return adjacencyList.keySet();
+        if (capacity <= degrees.length) return;
+
+        capacity = Math.max(capacity, 2 * degrees.length);
+        adjacencyList = Arrays.copyOf(adjacencyList, capacity);
+        degrees = Arrays.copyOf(degrees, capacity);
     }
 
 
     /**
-     * Returns the number of edges present in the graph.
+     * Sets the number of vertices without registering them, used by graphs that borrow the vertices of another
+     * graph.
+     *
+     * @param numberOfVertices the number of vertices
      */
-    @Override
-    public int getNumberOfEdges()
+    protected void setNumberOfVertices(int numberOfVertices)
     {
-        return numberOfEdges;
+        ensureCapacity(numberOfVertices);
+        this.numberOfVertices = numberOfVertices;
+        invalidateLowerBound();
     }
 
 
     /**
-     * Returns the number of nodes present in the graph.
+     * Sets the number of edges, used by subclasses that add or remove edges through the index based methods.
+     *
+     * @param numberOfEdges the number of edges
      */
-    @Override
-    public int getNumberOfVertices()
+    protected void setNumberOfEdges(int numberOfEdges)
     {
-        return vertices.size();
+        this.numberOfEdges = numberOfEdges;
     }
 
 
     /**
-     * Returns whether node u and node v are neighbours.
+     * Adds the indices of two vertices to each others adjacency, without checking whether they are neighbours
+     * already. The number of edges is not changed.
      *
-     * @param u the first vertex
-     * @param v the second vertex
+     * @param i the index of the first vertex
+     * @param j the index of the second vertex
      */
-    @Override
-    public boolean areNeighbors(Vertex u, Vertex v)
+    protected void link(int i, int j)
     {
-        return adjacencyList.get(u).contains(v);
+        append(i, j);
+        if (i != j) append(j, i);
+        invalidateLowerBound();
     }
 
 
     /**
-     * Returns the degree of node u.
+     * Removes the indices of two vertices from each others adjacency. The number of edges is not changed.
      *
-     * @param u the vertex to get the degree of
+     * @param i the index of the first vertex
+     * @param j the index of the second vertex
      */
-    @Override
-    public int getDegree(Vertex u)
+    protected void unlink(int i, int j)
     {
-        return adjacencyList.get(u) != null ? adjacencyList.get(u).size() : 0;
+        remove(i, j);
+        if (i != j) remove(j, i);
+        invalidateLowerBound();
     }
 
 
     /**
-     * Returns a collection of integers representing the neighbours of node u.
+     * Appends an index to the adjacency of a vertex.
      *
-     * @param u the vertex to get the neighbours of
+     * @param i the index of the vertex
+     * @param j the index to append
      */
-    @Override
-    public Collection<Vertex> getNeighborsOf(Vertex u)
+    private void append(int i, int j)
     {
-        return adjacencyList.get(u);
+        int[] row = adjacencyList[i];
+        if (row == null) {
+            row = adjacencyList[i] = new int[4];
+        } else if (degrees[i] == row.length) {
+            row = adjacencyList[i] = Arrays.copyOf(row, 2 * row.length);
+        }
+        row[degrees[i]++] = j;
     }
 
 
     /**
-     * Construct a spanning tree of the graph, which is used as the initial solution for the local search
-     * (metaheuristic) algorithm.
+     * Removes an index from the adjacency of a vertex by moving the last neighbour in its place.
+     *
+     * @param i the index of the vertex
+     * @param j the index to remove
      */
-    @Override
-    @SuppressWarnings("unchecked")
-    public TreeInterface<Vertex> getInitialSpanningTree()
+    private void remove(int i, int j)
     {
-        Tree<Vertex> tree = new Tree<>(getNumberOfVertices());
-        // random number between 0 and the number of vertices
-        int random = (int) (Math.random() * getNumberOfVertices());
-        Vertex root = (Vertex) getVertices().toArray()[random];
-
-        Stack<Vertex> stack = new Stack<>();
-        stack.push(root);
-
-        while (!stack.isEmpty()) {
-            Vertex v = stack.pop();
-            for (Vertex u : getNeighborsOf(v)) {
-                if (tree.getVerticesSet().contains(u)) continue;
-                tree.addEdge(v, u);
-                stack.push(u);
+        int[] row = adjacencyList[i];
+        for (int k = degrees[i] - 1; k >= 0; k--) {
+            if (row[k] == j) {
+                row[k] = row[--degrees[i]];
+                return;
             }
         }
+    }
 
-        tree.setRoot(root);
-        return tree;
+
+    /**
+     * Removes every edge from the graph, the vertices and the allocated adjacency arrays are kept.
+     */
+    protected void clearEdges()
+    {
+        Arrays.fill(degrees, 0, numberOfVertices, 0);
+        numberOfEdges = 0;
+        invalidateLowerBound();
     }
 
 
     /**
-     * Apply the local search algorithm. It returns an estimate for the hamiltonian completion number and needs to stop
-     * after maxIterations iterations.
+     * Returns the index of a vertex. Indices are handed out in the order in which the vertices are added.
      *
-     * @param maxIterations the maximum number of iterations
+     * @param vertex the vertex
+     * @return the index of the vertex or -1 if it is not part of the graph
      */
     @Override
-    public int applyLocalSearchAlgorithm(int maxIterations)
+    public int indexOf(Vertex vertex)
     {
-        int smallestPPN = Integer.MAX_VALUE;
-        int amountOfTrees = 0;
-
-        int num = Math.min(maxIterations, getNumberOfVertices());
-        while (amountOfTrees < num) {
-            Tree<Vertex> tree = (Tree<Vertex>) getInitialSpanningTree();
-            int ppn = localSearch(tree);
-            if (ppn == 1) {
-                return 0;
-            }
-            if (ppn < smallestPPN) {
-                smallestPPN = ppn;
-            }
-            amountOfTrees++;
-        }
-
-        return smallestPPN - 1;
+        Integer index = indices.get(vertex);
+        return index != null ? index : -1;
     }
 
 
     /**
-     * Apply your chosen metaheuristic. It returns an estimate for the hamiltonian completion number.
+     * Returns the vertex with a given index.
      *
-     * @param maxIterations the maximum number of iterations
+     * @param index the index of the vertex
      */
     @Override
-    public int applyMetaheuristic(int maxIterations)
+    public Vertex vertexAt(int index)
     {
-        int smallestPPN = Integer.MAX_VALUE;
-        int amountOfTrees = 0;
-
-        int num = Math.min(maxIterations, getNumberOfVertices());
-        while (amountOfTrees < num) {
-            Tree<Vertex> tree = (Tree<Vertex>) getInitialSpanningTree();
-            int ppn = metaheuristicSearch(tree);
-            if (ppn == 1) {
-                return 0;
-            }
-            if (ppn < smallestPPN) {
-                smallestPPN = ppn;
-            }
-            amountOfTrees++;
-        }
-
-        return smallestPPN - 1;
+        return vertices.get(index);
     }
 
 
     /**
-     * Apply the local search algorithm. It returns an estimate for the minimum path partition number
+     * Returns the degree of the vertex with a given index.
      *
-     * @param tree the tree to apply the local search algorithm on
-     * @return the minimum path partition number
+     * @param index the index of the vertex
      */
-    public int localSearch(Tree<Vertex> tree)
+    @Override
+    public int degreeAt(int index)
     {
-        int ppn = tree.getMinimumPathPartitionNumber();
+        return degrees[index];
+    }
 
-        while (true) {
-            tree.perturb(this);
-            int newPPN = tree.getMinimumPathPartitionNumber();
 
-            if (newPPN == 1) {
-                return 1;
-            }
-            if (newPPN < ppn) {
-                ppn = newPPN;
-            } else {
-                return ppn;
-            }
-        }
+    /**
+     * Returns the index of the k-th neighbour of the vertex with a given index.
+     *
+     * @param index the index of the vertex
+     * @param k     the position of the neighbour, between 0 and the degree of the vertex
+     */
+    @Override
+    public int neighborIndexAt(int index, int k)
+    {
+        return adjacencyList[index][k];
     }
 
 
     /**
-     * Apply the metaheuristic search algorithm. It returns an estimate for the minimum path partition number
+     * Returns whether the vertices with the given indices are neighbours.
      *
-     * @param tree the tree to apply the metaheuristic search algorithm on
-     * @return the minimum path partition number
+     * @param i the index of the first vertex
+     * @param j the index of the second vertex
      */
-    public int metaheuristicSearch(Tree<Vertex> tree)
+    public boolean areNeighborsAt(int i, int j)
     {
-        double Tmax = 100;
-        double Tmin = 0.1;
-        double alpha = 0.93;
-        int smallestPPN = tree.getMinimumPathPartitionNumber();
-        float evaluation = evaluate(tree, smallestPPN);
-
-        while (Tmax > Tmin) {
-            tree.perturb(this);
-            int newPPN = tree.getMinimumPathPartitionNumber();
-            float newEvaluation = evaluate(tree, newPPN);
-
-            if (newPPN == 1) {
-                return 1;
-            }
-            if (newEvaluation > evaluation) {
-                evaluation = newEvaluation;
-                if (newPPN < smallestPPN) {
-                    smallestPPN = newPPN;
-                }
-            } else {
-                double p = Math.exp((evaluation-newEvaluation) / Tmax);
-                if (Math.random() < p) {
-                    evaluation = newEvaluation;
-                    if (newPPN < smallestPPN) {
-                        smallestPPN = newPPN;
-                    }
-                    Tmax *= alpha;
-                } else {
-                    if (newPPN < smallestPPN) {
-                        smallestPPN = newPPN;
-                    }
-                    return smallestPPN;
-                }
-            }
+        if (degrees[i] > degrees[j]) {
+            int temp = i;
+            i = j;
+            j = temp;
         }
 
-        return smallestPPN;
+        int[] row = adjacencyList[i];
+        for (int k = 0; k < degrees[i]; k++) {
+            if (row[k] == j) return true;
+        }
+        return false;
+    }
+
+
+    /**
+     * @return a collection of integers representing the vertices of the graph.
+     */
+    @Override
+    public Collection<Vertex> getVertices()
+    {
+        return vertices;
+    }
+
+
+    /**
+     * @return a collection of integers representing the vertices of the graph
+     */
+    public Collection<Vertex> getVerticesSet()
+    {
+        return indices.keySet();
+    }
+
+
+    /**
+     * Returns the number of edges present in the graph.
+     */
+    @Override
+    public int getNumberOfEdges()
+    {
+        return numberOfEdges;
     }
 
 
     /**
-     * Evaluating a tree means calculating the density, connectivity and isolated vertices.
+     * Returns the number of nodes present in the graph.
+     */
+    @Override
+    public int getNumberOfVertices()
+    {
+        return numberOfVertices;
+    }
+
+
+    /**
+     * Returns whether node u and node v are neighbours.
      *
-     * @param tree the tree to evaluate
-     * @param ppn  the path partition number of the tree
-     * @return the evaluation of the tree
-     * @see Graph#metaheuristicSearch(Tree)
+     * @param u the first vertex
+     * @param v the second vertex
      */
-    @SuppressWarnings("unused")
-    public float evaluate(Tree<Vertex> tree, int ppn)
+    @Override
+    public boolean areNeighbors(Vertex u, Vertex v)
     {
-        float density = (float) getNumberOfEdges() / tree.getNumberOfEdges();
-        float isolation = (float) tree.getNumberOfIsolated() / tree.getNumberOfVertices();
+        int i = indexOf(u);
+        int j = indexOf(v);
+        return i >= 0 && j >= 0 && areNeighborsAt(i, j);
+    }
 
-        return density - (float) ppn - isolation;
+
+    /**
+     * Returns the degree of node u.
+     *
+     * @param u the vertex to get the degree of
+     */
+    @Override
+    public int getDegree(Vertex u)
+    {
+        int i = indexOf(u);
+        return i >= 0 ? degrees[i] : 0;
     }
 
 
-    public void shuffleVertices()
+    /**
+     * Returns a collection of integers representing the neighbours of node u. The collection is a view on the
+     * adjacency of u, it changes when edges are added or removed.
+     *
+     * @param u the vertex to get the neighbours of
+     */
+    @Override
+    public Collection<Vertex> getNeighborsOf(Vertex u)
     {
-        Collections.shuffle((List<?>) getVertices());
+        int i = indexOf(u);
+        if (i < 0) return Collections.emptyList();
+
+        return new AbstractList<Vertex>() {
+            @Override
+            public Vertex get(int k)
+            {
+                if (k >= degreeAt(i)) throw new IndexOutOfBoundsException("Index: " + k);
+                return vertexAt(neighborIndexAt(i, k));
+            }
+
+
+            @Override
+            public int size()
+            {
+                return degreeAt(i);
+            }
+        };
     }
 }
@@ -0,0 +1,160 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+
+/**
+ * A binary cache of a graph file, stored next to it with the extension {@value #EXTENSION}. The cache holds the
+ * compressed sparse row arrays of the graph, so it can be loaded without parsing. All values are little-endian ints
+ * or longs:
+ * <pre>
+ * magic, version, source length (long), source last modified (long), vertices, edges, targets,
+ * labels[vertices], offsets[vertices + 1], targets[targets], crc32 of everything before
+ * </pre>
+ * A cache whose recorded length or modification time differs from the source file is stale and ignored.
+ *
+ * @author Seppe Degryse
+ * @version 1.2
+ * @see Constructor#createGraphFromFile(String, boolean)
+ */
+public class GraphCache {
+
+    public static final String EXTENSION = ".csr";
+
+    private static final int MAGIC = 0x52534348; // "HCSR" in little-endian
+
+    // version 2 stores every edge once, caches of version 1 may hold the repeated edges of their file
+    private static final int VERSION = 2;
+
+    private static final int HEADER = 4 + 4 + 8 + 8 + 4 + 4 + 4;
+
+
+    /**
+     * Returns the path of the cache of a graph file.
+     *
+     * @param source the path of the graph file
+     */
+    public static Path cacheOf(String source)
+    {
+        return Paths.get(source + EXTENSION);
+    }
+
+
+    /**
+     * Loads the cached graph of a graph file.
+     *
+     * @param source the path of the graph file
+     * @return the graph or null if there is no valid cache for the current version of the file
+     */
+    public static CsrGraph load(String source)
+    {
+        File file = new File(source);
+        Path cache = cacheOf(source);
+        if (!file.isFile() || !Files.isRegularFile(cache)) return null;
+
+        try (FileChannel channel = FileChannel.open(cache, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER + 4) return null;
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return null;
+            if (buffer.getLong() != file.length() || buffer.getLong() != file.lastModified()) return null;
+
+            int vertices = buffer.getInt();
+            int edges = buffer.getInt();
+            int targets = buffer.getInt();
+            if (vertices < 0 || edges < 0 || targets < 0 ||
+                    size != HEADER + 4L * (vertices + vertices + 1 + targets) + 4) return null;
+
+            CRC32 crc = new CRC32();
+            ByteBuffer content = buffer.duplicate();
+            content.position(0).limit((int) size - 4);
+            crc.update(content);
+            if (buffer.getInt((int) size - 4) != (int) crc.getValue()) return null;
+
+            int[] labels = new int[vertices];
+            int[] offsets = new int[vertices + 1];
+            int[] neighbours = new int[targets];
+            buffer.asIntBuffer().get(labels).get(offsets).get(neighbours);
+
+            return CsrGraph.fromArrays(labels, offsets, neighbours, edges);
+
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+
+    /**
+     * Writes the cache of a graph file. The cache is written to a temporary file first and then moved in place, so
+     * concurrent runs never see a partial cache. The temporary file is only readable by its owner, so the cache gets
+     * the permissions of the graph file before the move.
+     *
+     * @param source the path of the graph file
+     * @param graph  the graph read from the file
+     * @throws IOException if the cache can not be written
+     */
+    public static void store(String source, CsrGraph graph) throws IOException
+    {
+        File file = new File(source);
+        int[] labels = graph.getLabels();
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+
+        long size = HEADER + 4L * (labels.length + offsets.length + targets.length) + 4;
+        if (size > Integer.MAX_VALUE)
+            throw new IOException("Graph is too large to cache!");
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(file.length()).putLong(file.lastModified());
+        buffer.putInt(labels.length).putInt(graph.getNumberOfEdges()).putInt(targets.length);
+        buffer.asIntBuffer().put(labels).put(offsets).put(targets);
+        buffer.position(buffer.position() + 4 * (labels.length + offsets.length + targets.length));
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+
+        Path cache = cacheOf(source);
+        Path temporary = Files.createTempFile(cache.toAbsolutePath().getParent(), cache.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+            }
+            copyPermissions(file.toPath(), temporary);
+            Files.move(temporary, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+
+    /**
+     * Gives a file the permissions of another file, on file systems without posix permissions nothing is changed.
+     *
+     * @param source the file whose permissions are copied
+     * @param target the file that gets them
+     * @throws IOException if the permissions can not be read or set
+     */
+    private static void copyPermissions(Path source, Path target) throws IOException
+    {
+        try {
+            Files.setPosixFilePermissions(target, Files.getPosixFilePermissions(source));
+        } catch (UnsupportedOperationException e) {
+            // the temporary file has the default permissions of the file system already
+        }
+    }
+}
@@ -31,6 +31,16 @@ public interface GraphInterface<Vertex> {
      */
     Collection<Vertex> getNeighborsOf(Vertex u);
 
+    /**
+     *  Returns the vertex with index i, the vertices are numbered 0 to n-1.
+     */
+    Vertex vertexAt(int i);
+
+    /**
+     *  Returns the k-th neighbour of node u, k lies between 0 and the degree of u.
+     */
+    Vertex neighborAt(Vertex u, int k);
+
     /**
      *  Construct a spanning tree of the graph, which is used as the initial solution for the local search
      *  (metaheuristic) algorithm.
@@ -0,0 +1,147 @@
+import java.util.Arrays;
+
+
+/**
+ * A disjoint set over the integers 0..capacity-1, stored in primitive arrays. Every element starts out in its own
+ * set. Resetting all sets is done in constant time by advancing a generation counter: an element whose stamp does not
+ * match the current generation is treated as a singleton and is only initialised again when it is first touched.
+ *
+ * @author Seppe Degryse
+ * @version 1.0
+ * @see UnionFind
+ */
+public class IntUnionFind {
+
+    private int[] parent;
+
+    private byte[] rank;
+
+    private int[] stamp;
+
+    private int generation = 1;
+
+
+    IntUnionFind()
+    {
+        this(16);
+    }
+
+
+    IntUnionFind(int capacity)
+    {
+        capacity = Math.max(capacity, 1);
+        parent = new int[capacity];
+        rank = new byte[capacity];
+        stamp = new int[capacity];
+    }
+
+
+    /**
+     * @return the number of elements that can be stored without growing the arrays
+     */
+    public int getCapacity()
+    {
+        return parent.length;
+    }
+
+
+    /**
+     * Getter for the direct parent of an element.
+     *
+     * @param x the element
+     * @return the parent of the element
+     */
+    public int getParent(int x)
+    {
+        touch(x);
+        return parent[x];
+    }
+
+
+    /**
+     * Finds the representative of the set of an element. Uses path halving, every visited element is linked to its
+     * grandparent.
+     *
+     * @param x the element
+     * @return the representative of the set of the element
+     */
+    public int find(int x)
+    {
+        touch(x);
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+
+    /**
+     * Unites the sets of two elements.
+     *
+     * @param x the first element
+     * @param y the second element
+     * @return true if the elements were in different sets, false otherwise
+     */
+    public boolean union(int x, int y)
+    {
+        x = find(x);
+        y = find(y);
+
+        if (x == y) return false;
+
+        if (rank[x] < rank[y]) {
+            int temp = x;
+            x = y;
+            y = temp;
+        }
+
+        parent[y] = x;
+        if (rank[x] == rank[y]) rank[x]++;
+        return true;
+    }
+
+
+    /**
+     * Puts every element back into its own set in constant time.
+     */
+    public void reset()
+    {
+        generation++;
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+    }
+
+
+    /**
+     * Initialises an element as a singleton if it was not touched since the last reset.
+     *
+     * @param x the element
+     */
+    private void touch(int x)
+    {
+        if (x >= parent.length) grow(x + 1);
+
+        if (stamp[x] != generation) {
+            stamp[x] = generation;
+            parent[x] = x;
+            rank[x] = 0;
+        }
+    }
+
+
+    /**
+     * Grows the arrays so that they can hold at least the given number of elements.
+     *
+     * @param capacity the minimum capacity
+     */
+    private void grow(int capacity)
+    {
+        capacity = Math.max(capacity, 2 * parent.length);
+        parent = Arrays.copyOf(parent, capacity);
+        rank = Arrays.copyOf(rank, capacity);
+        stamp = Arrays.copyOf(stamp, capacity);
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Lower bounds on the minimum path partition number of a graph. When the search reaches the bound its path cover is
+ * optimal and it can stop. The bound is the sum over the connected components of the best of the following bounds:
+ * <ul>
+ *     <li>components: every component needs at least one path.</li>
+ *     <li>leaves: a vertex of degree one is an end point of its path. A vertex with more than two leaves can join at
+ *     most two of them, every other leaf is a path of its own with two end points. With S such leaves and R other
+ *     leaves there are at least 2S + R end points, so at least S + ceil(R / 2) paths.</li>
+ *     <li>bipartite imbalance: the vertices of a path alternate between the sides of a bipartite component, so every
+ *     path has at most one vertex more on one side than on the other.</li>
+ *     <li>trees: the greedy bottom-up path cover of a tree is exact, so a component without cycles gets its optimum.
+ *     </li>
+ * </ul>
+ * All bounds take linear time in the size of the graph.
+ *
+ * @author Seppe Degryse
+ * @version 1.0
+ * @see AbstractGraph#getPathPartitionLowerBound()
+ */
+public final class LowerBound {
+
+    private LowerBound()
+    {
+    }
+
+
+    /**
+     * Computes a lower bound on the minimum path partition number of a graph.
+     *
+     * @param graph the graph
+     * @return the lower bound, 0 for a graph without vertices
+     */
+    public static int of(AbstractGraph<?> graph)
+    {
+        int n = graph.getNumberOfVertices();
+
+        // the number of leaves next to every vertex
+        int[] leaves = new int[n];
+        for (int v = 0; v < n; v++) {
+            if (graph.degreeAt(v) != 1) continue;
+            int u = graph.neighborIndexAt(v, 0);
+            if (u != v) leaves[u]++;
+        }
+
+        int[] order = new int[n];
+        int[] parent = new int[n];
+        int[] side = new int[n];
+        int[] pathDegree = new int[n];
+        boolean[] visited = new boolean[n];
+        int bound = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (visited[root]) continue;
+
+            // breadth first over the component of the root, colouring the vertices by the parity of their depth
+            int size = 0;
+            visited[root] = true;
+            parent[root] = -1;
+            side[root] = 0;
+            order[size++] = root;
+            long degrees = 0;
+            boolean bipartite = true;
+            int[] sides = new int[2];
+            int surplus = 0;
+            int remaining = 0;
+
+            for (int head = 0; head < size; head++) {
+                int v = order[head];
+                sides[side[v]]++;
+                degrees += graph.degreeAt(v);
+                surplus += Math.max(0, leaves[v] - 2);
+                remaining += Math.min(leaves[v], 2);
+
+                for (int k = 0; k < graph.degreeAt(v); k++) {
+                    int u = graph.neighborIndexAt(v, k);
+                    if (!visited[u]) {
+                        visited[u] = true;
+                        parent[u] = v;
+                        side[u] = 1 - side[v];
+                        order[size++] = u;
+                    } else if (side[u] == side[v]) {
+                        bipartite = false;
+                    }
+                }
+            }
+
+            int component = Math.max(1, surplus + (remaining + 1) / 2);
+            if (bipartite)
+                component = Math.max(component, Math.abs(sides[0] - sides[1]));
+            // duplicate edges count twice, so a component with them is never taken for a tree
+            if (degrees == 2L * (size - 1))
+                component = treePathPartitionNumber(order, parent, pathDegree, size);
+            bound += component;
+        }
+
+        return bound;
+    }
+
+
+    /**
+     * Computes the minimum path partition number of a tree. Walking the tree from the leaves up, a vertex joins its
+     * parent if both still have fewer than two path edges.
+     *
+     * @param order      the vertices of the tree in breadth first order, the root first
+     * @param parent     the parent of every vertex
+     * @param pathDegree the number of path edges of every vertex, zero for the vertices of the tree
+     * @param size       the number of vertices of the tree
+     * @return the minimum path partition number
+     */
+    private static int treePathPartitionNumber(int[] order, int[] parent, int[] pathDegree, int size)
+    {
+        int edges = 0;
+        for (int i = size - 1; i > 0; i--) {
+            int v = order[i];
+            int p = parent[v];
+            if (pathDegree[v] < 2 && pathDegree[p] < 2) {
+                pathDegree[v]++;
+                pathDegree[p]++;
+                edges++;
+            }
+        }
+        return size - edges;
+    }
+}
@@ -1,22 +1,70 @@
+import java.io.IOException;
+import java.util.function.Function;
 
 
 public class Main {
 
-    public static void main(String[] args)
+    public static void main(String[] args) throws IOException
     {
-        Graph<Integer> graph = (Graph<Integer>) Constructor.createGraphFromFile(args[0]);
+        AbstractGraph<Integer> graph = (AbstractGraph<Integer>) Constructor.createGraphFromFile(args[0], true);
 
-        int n;
-        if (args.length == 1) {
-            n = 30;
+        // a number of iterations or a time budget, e.g. 500ms
+        int n = 30;
+        long budget = -1;
+        if (args.length > 1) {
+            if (args[1].endsWith("ms")) {
+                budget = Long.parseLong(args[1].substring(0, args[1].length() - 2));
+            } else {
+                n = Integer.parseInt(args[1]);
+            }
+        }
+
+        int threads;
+        if (args.length <= 2) {
+            threads = Runtime.getRuntime().availableProcessors();
+        } else {
+            threads = Integer.parseInt(args[2]);
+        }
+
+        long seed;
+        if (args.length <= 3) {
+            seed = System.nanoTime();
         } else {
-            n = Integer.parseInt(args[1]);
+            seed = Long.parseLong(args[3]);
         }
 
+        // a number of replicas switches to parallel tempering, the iterations are then its rounds
+        int replicas = args.length <= 4 ? 0 : Integer.parseInt(args[4]);
+
         long startTime = System.nanoTime();
-        int sol = graph.applyMetaheuristic(n);
+        // the search runs on the kernel of the graph, its path cover is lifted back
+        Reduction reduction = Reduction.of(graph);
+        System.out.println("Kernel: " + reduction.getKernel().getNumberOfVertices() + " vertices, " +
+                reduction.getNumberOfRemovedPaths() + " paths removed");
+
+        Function<AbstractGraph<?>, Solution> search;
+        if (budget >= 0) {
+            long time = budget;
+            search = kernel -> replicas > 0 ?
+                    kernel.applyParallelTemperingWithin(time, replicas, threads, seed) :
+                    kernel.applyMetaheuristicWithin(time, threads, seed);
+        } else {
+            int iterations = n;
+            search = kernel -> replicas > 0 ?
+                    kernel.getParallelTemperingSolution(iterations, replicas, threads, seed) :
+                    kernel.getMetaheuristicSolution(iterations, threads, seed);
+        }
+
+        Solution solution = reduction.solve(search);
         long endTime = System.nanoTime();
-        System.out.println("Solution: " + sol);
+        System.out.println("Seed: " + seed);
+        System.out.println("Solution: " + solution.getHamiltonianCompletionNumber());
+        System.out.println("Lower bound: " + solution.getLowerBound() + (solution.isOptimal() ? ", optimal" : ""));
+        if (budget >= 0) {
+            System.out.println("Time to best: " + solution.getTimeToBest() / 1000000 + "ms");
+            System.out.println("Restarts: " + solution.getRestarts());
+        }
         System.out.println("Time: " + (endTime - startTime) / 1000000 + "ms");
+        Metrics.dump();
     }
 }
\ No newline at end of file
@@ -0,0 +1,418 @@
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.ObjectName;
+
+
+/**
+ * Counters, latency histograms and the path partition number trajectory of the searches. The metrics are switched on
+ * with the system property {@code hcp.metrics}. The switch is a static final field, so when it is off the JIT compiler
+ * removes every call as dead code and the search runs as if the metrics did not exist.
+ * <p>
+ * Counters are striped {@link LongAdder}s, so threads do not contend on a single cache line. The histograms use
+ * logarithmic buckets with 16 linear sub-buckets each, in the style of HdrHistogram, which bounds the error of every
+ * percentile to about 6% at a fixed size. When enabled the metrics are registered as the MXBean
+ * {@value #OBJECT_NAME} and {@link #dump()} writes them as JSON to the file in the system property
+ * {@code hcp.metrics.file}, or to the standard error stream.
+ *
+ * @author Seppe Degryse
+ * @version 1.1
+ */
+public final class Metrics {
+
+    public static final boolean ENABLED = Boolean.getBoolean("hcp.metrics");
+
+    public static final String OBJECT_NAME = "hcp:type=Metrics";
+
+    // the trajectory keeps at most this many points, later points are only counted
+    private static final int MAX_POINTS = 1 << 16;
+
+    private static final LongAdder[] counters = new LongAdder[Counter.values().length];
+
+    private static final Histogram[] histograms = new Histogram[Timer.values().length];
+
+    private static final long[] trajectory = new long[3 * MAX_POINTS];
+
+    // the number of points handed out, guarded by the trajectory so a reset never races a point being written
+    private static int points = 0;
+
+    private static final ThreadLocal<long[]> restart = ThreadLocal.withInitial(() -> new long[]{-1, 0});
+
+    static {
+        for (int i = 0; i < counters.length; i++)
+            counters[i] = new LongAdder();
+        for (int i = 0; i < histograms.length; i++)
+            histograms[i] = new Histogram();
+
+        if (ENABLED) register();
+    }
+
+
+    private Metrics()
+    {
+    }
+
+
+    /**
+     * The events that are counted.
+     */
+    public enum Counter {
+        RESTARTS, PERTURBATIONS, PROPOSALS, ACCEPTED, WORSE, ACCEPTED_WORSE, EPOCHS, REHEATS, EXCHANGES_PROPOSED,
+        EXCHANGES_ACCEPTED, TRAJECTORY_DROPPED
+    }
+
+
+    /**
+     * The sections that are timed.
+     */
+    public enum Timer {
+        RESTART, PATH_COVER, UNION_FIND, CONNECT_PATHS, RESTORE_TREE
+    }
+
+
+    /**
+     * The management interface of the metrics.
+     */
+    public interface MetricsMXBean {
+
+        Map<String, Long> getCounters();
+
+        Map<String, Long> getLatencies();
+
+        String getJson();
+
+        void reset();
+    }
+
+
+    /**
+     * Adds one to a counter.
+     */
+    public static void increment(Counter counter)
+    {
+        if (ENABLED) counters[counter.ordinal()].increment();
+    }
+
+
+    /**
+     * Adds a number to a counter, loops count locally and add once.
+     */
+    public static void add(Counter counter, long value)
+    {
+        if (ENABLED) counters[counter.ordinal()].add(value);
+    }
+
+
+    /**
+     * @return the current time if the metrics are enabled, to be passed to {@link #record(Timer, long)}
+     */
+    public static long start()
+    {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+
+    /**
+     * Records the time since a start.
+     *
+     * @param timer the timed section
+     * @param start the value returned by {@link #start()}
+     */
+    public static void record(Timer timer, long start)
+    {
+        if (ENABLED) histograms[timer.ordinal()].record(System.nanoTime() - start);
+    }
+
+
+    /**
+     * Marks the start of a restart on the current thread, the improvements that follow belong to it.
+     *
+     * @param index the index of the restart
+     */
+    public static void beginRestart(int index)
+    {
+        if (!ENABLED) return;
+
+        long[] current = restart.get();
+        current[0] = index;
+        current[1] = System.nanoTime();
+        increment(Counter.RESTARTS);
+    }
+
+
+    /**
+     * Marks the end of the restart on the current thread.
+     */
+    public static void endRestart()
+    {
+        if (!ENABLED) return;
+
+        long[] current = restart.get();
+        if (current[0] >= 0) histograms[Timer.RESTART.ordinal()].record(System.nanoTime() - current[1]);
+        current[0] = -1;
+    }
+
+
+    /**
+     * Adds a point to the trajectory of the restart on the current thread, nothing is added outside a restart.
+     *
+     * @param ppn the path partition number the restart improved to
+     */
+    public static void improved(int ppn)
+    {
+        if (!ENABLED) return;
+
+        long[] current = restart.get();
+        if (current[0] < 0) return;
+        synchronized (trajectory) {
+            if (points == MAX_POINTS) {
+                increment(Counter.TRAJECTORY_DROPPED);
+                return;
+            }
+            int point = points++;
+            trajectory[3 * point] = current[0];
+            trajectory[3 * point + 1] = System.nanoTime() - current[1];
+            trajectory[3 * point + 2] = ppn;
+        }
+    }
+
+
+    /**
+     * Resets all metrics.
+     */
+    public static void reset()
+    {
+        for (LongAdder counter : counters)
+            counter.reset();
+        for (Histogram histogram : histograms)
+            histogram.reset();
+        synchronized (trajectory) {
+            points = 0;
+        }
+    }
+
+
+    /**
+     * @return the counters by name
+     */
+    public static Map<String, Long> getCounters()
+    {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (Counter counter : Counter.values())
+            map.put(name(counter), counters[counter.ordinal()].sum());
+        return map;
+    }
+
+
+    /**
+     * @return the count, mean, 50th, 90th, 99th percentile and maximum of every timer in nanoseconds, by name
+     */
+    public static Map<String, Long> getLatencies()
+    {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (Timer timer : Timer.values()) {
+            Histogram histogram = histograms[timer.ordinal()];
+            String name = name(timer);
+            map.put(name + ".count", histogram.getCount());
+            map.put(name + ".mean", histogram.getMean());
+            map.put(name + ".p50", histogram.getPercentile(0.5));
+            map.put(name + ".p90", histogram.getPercentile(0.9));
+            map.put(name + ".p99", histogram.getPercentile(0.99));
+            map.put(name + ".max", histogram.getMax());
+        }
+        return map;
+    }
+
+
+    /**
+     * @return the counters, the timers and the trajectory as a JSON object
+     */
+    public static String toJson()
+    {
+        StringBuilder json = new StringBuilder("{\n  \"counters\": {");
+        appendMap(json, getCounters());
+        json.append("},\n  \"latencies\": {");
+        appendMap(json, getLatencies());
+        json.append("},\n  \"trajectory\": [");
+
+        synchronized (trajectory) {
+            int size = points;
+            for (int i = 0; i < size; i++) {
+                json.append(i == 0 ? "\n    " : ",\n    ")
+                        .append("{\"restart\": ").append(trajectory[3 * i])
+                        .append(", \"time\": ").append(trajectory[3 * i + 1])
+                        .append(", \"ppn\": ").append(trajectory[3 * i + 2]).append('}');
+            }
+            if (size > 0) json.append("\n  ");
+        }
+        return json.append("]\n}").toString();
+    }
+
+
+    /**
+     * Writes the metrics as JSON if they are enabled.
+     *
+     * @throws IOException if the file in {@code hcp.metrics.file} can not be written
+     */
+    public static void dump() throws IOException
+    {
+        if (!ENABLED) return;
+
+        String file = System.getProperty("hcp.metrics.file");
+        if (file == null) {
+            System.err.println(toJson());
+            return;
+        }
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(toJson());
+        }
+    }
+
+
+    private static void appendMap(StringBuilder json, Map<String, Long> map)
+    {
+        boolean first = true;
+        for (Map.Entry<String, Long> entry : map.entrySet()) {
+            json.append(first ? "\n    \"" : ",\n    \"").append(entry.getKey()).append("\": ").append(entry.getValue());
+            first = false;
+        }
+        json.append("\n  ");
+    }
+
+
+    /**
+     * @return the name of a constant in camel case, e.g. pathCover for PATH_COVER
+     */
+    private static String name(Enum<?> constant)
+    {
+        StringBuilder name = new StringBuilder();
+        for (String word : constant.name().toLowerCase().split("_")) {
+            name.append(name.length() == 0 ? word : Character.toUpperCase(word.charAt(0)) + word.substring(1));
+        }
+        return name.toString();
+    }
+
+
+    private static void register()
+    {
+        try {
+            MetricsMXBean bean = new MetricsMXBean() {
+                public Map<String, Long> getCounters() { return Metrics.getCounters(); }
+                public Map<String, Long> getLatencies() { return Metrics.getLatencies(); }
+                public String getJson() { return toJson(); }
+                public void reset() { Metrics.reset(); }
+            };
+            ManagementFactory.getPlatformMBeanServer().registerMBean(bean, new ObjectName(OBJECT_NAME));
+        } catch (Exception e) {
+            System.err.println("The metrics could not be registered: " + e.getMessage());
+        }
+    }
+
+
+    /**
+     * A histogram of non-negative values with logarithmic buckets that are split in 16 linear sub-buckets. Values
+     * below 16 have a bucket of their own.
+     */
+    static class Histogram {
+
+        private static final int SUB_BITS = 4;
+
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray((64 - SUB_BITS) * SUB_BUCKETS);
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder sum = new LongAdder();
+
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+
+        void record(long value)
+        {
+            if (value < 0) value = 0;
+            buckets.incrementAndGet(indexOf(value));
+            count.increment();
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+
+        static int indexOf(long value)
+        {
+            if (value < SUB_BUCKETS) return (int) value;
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+        }
+
+
+        /**
+         * @return the smallest value of a bucket
+         */
+        static long valueOf(int index)
+        {
+            if (index < SUB_BUCKETS) return index;
+            int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+            return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - SUB_BITS);
+        }
+
+
+        long getCount()
+        {
+            return count.sum();
+        }
+
+
+        long getMean()
+        {
+            long n = count.sum();
+            return n == 0 ? 0 : sum.sum() / n;
+        }
+
+
+        long getMax()
+        {
+            return max.get();
+        }
+
+
+        /**
+         * @param fraction the fraction of the values that are at most the returned value
+         * @return the smallest value of the bucket that contains the percentile, 0 if nothing was recorded
+         */
+        long getPercentile(double fraction)
+        {
+            long total = 0;
+            for (int i = 0; i < buckets.length(); i++)
+                total += buckets.get(i);
+            if (total == 0) return 0;
+
+            long rank = Math.max(1, (long) Math.ceil(fraction * total));
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) return valueOf(i);
+            }
+            return getMax();
+        }
+
+
+        void reset()
+        {
+            for (int i = 0; i < buckets.length(); i++)
+                buckets.set(i, 0);
+            count.reset();
+            sum.reset();
+            max.reset();
+        }
+    }
+}
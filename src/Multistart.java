@@ -0,0 +1,276 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+
+/**
+ * Runs the independent restarts of the local search or the metaheuristic on a pool of threads. Every restart grows
+ * its own spanning tree, reusing the tree of the previous restart on its thread, and gets its own random source,
+ * seeded from the restart index, so the result only depends on the seed and not on the number of threads or on the
+ * order in which the restarts are picked up. The smallest path partition number is shared between the workers, as
+ * soon as one of them reaches the lower bound of the graph, which is a hamiltonian path for a graph that has one, all
+ * of them stop.
+ * <p>
+ * The restarts can also be bounded by a deadline instead of a number, the workers then keep restarting until the
+ * deadline expires and the running searches return their best tree so far.
+ *
+ * @param <Vertex> the type of the vertices
+ * @author Seppe Degryse
+ * @version 1.6
+ * @see AbstractGraph#applyMetaheuristic(int, int, long)
+ * @see AbstractGraph#applyMetaheuristicWithin(long, int, long)
+ */
+public class Multistart<Vertex> {
+
+    private final AbstractGraph<Vertex> graph;
+
+    private final int threads;
+
+
+    Multistart(AbstractGraph<Vertex> graph, int threads) throws IllegalArgumentException
+    {
+        if (threads < 1)
+            throw new IllegalArgumentException("At least one thread is needed!");
+
+        this.graph = graph;
+        this.threads = threads;
+    }
+
+
+    /**
+     * Runs the restarts.
+     *
+     * @param restarts      the number of restarts
+     * @param metaheuristic true to run the metaheuristic, false to run the local search
+     * @param seed          the seed of the restarts
+     * @return an estimate for the hamiltonian completion number
+     */
+    public int run(int restarts, boolean metaheuristic, long seed)
+    {
+        return solve(restarts, metaheuristic, seed).getHamiltonianCompletionNumber();
+    }
+
+
+    /**
+     * Runs the restarts and keeps the path cover of the best one.
+     *
+     * @param restarts      the number of restarts
+     * @param metaheuristic true to run the metaheuristic, false to run the local search
+     * @param seed          the seed of the restarts
+     * @return the best path cover and the time it was found
+     */
+    public Solution solve(int restarts, boolean metaheuristic, long seed)
+    {
+        return search(restarts, 0, false, metaheuristic, seed);
+    }
+
+
+    /**
+     * Keeps restarting until the time budget is spent. At least one restart is run, even if the budget is zero.
+     *
+     * @param nanoseconds   the time budget in nanoseconds
+     * @param metaheuristic true to run the metaheuristic, false to run the local search
+     * @param seed          the seed of the restarts
+     * @return the best estimate for the hamiltonian completion number and the time it was found
+     */
+    public Solution runFor(long nanoseconds, boolean metaheuristic, long seed)
+    {
+        return search(Integer.MAX_VALUE, System.nanoTime() + nanoseconds, true, metaheuristic, seed);
+    }
+
+
+    /**
+     * Runs the restarts until all of them are done, the lower bound is reached or the deadline expires.
+     *
+     * @param restarts      the maximum number of restarts
+     * @param deadline      the value of {@link System#nanoTime()} at which the search stops, if timed
+     * @param timed         whether the deadline applies
+     * @param metaheuristic true to run the metaheuristic, false to run the local search
+     * @param seed          the seed of the restarts
+     * @return the best estimate for the hamiltonian completion number and the time it was found
+     */
+    private Solution search(int restarts, long deadline, boolean timed, boolean metaheuristic, long seed)
+    {
+        long start = System.nanoTime();
+        Seeds seeds = new Seeds(seed);
+        Best best = new Best(start);
+        AtomicInteger next = new AtomicInteger();
+        int bound = graph.getPathPartitionLowerBound();
+        BooleanSupplier stop = timed ?
+                () -> best.getPPN() <= bound || System.nanoTime() - deadline >= 0 :
+                () -> best.getPPN() <= bound;
+
+        // every worker keeps its tree and cover between restarts, a cover is only replaced when the best keeps it
+        Runnable worker = () -> {
+            Tree<Vertex> tree = null;
+            int[] cover = new int[2 * graph.getNumberOfVertices()];
+            long[] found = new long[1];
+            int i;
+            while ((i = next.getAndIncrement()) < restarts && (i == 0 || !stop.getAsBoolean())) {
+                SplittableRandom random = new SplittableRandom(seeds.get(i));
+                Metrics.beginRestart(i);
+                tree = graph.getInitialSpanningTree(random, tree);
+                int ppn = restart(metaheuristic, tree, random, stop, cover, found);
+                Metrics.endRestart();
+                if (best.offer(i, ppn, cover, found[0])) cover = new int[2 * graph.getNumberOfVertices()];
+            }
+        };
+
+        int workers = Math.min(threads, restarts);
+        if (workers <= 1) {
+            worker.run();
+        } else {
+            execute(worker, workers);
+        }
+
+        return best.toSolution(graph, bound - 1);
+    }
+
+
+    /**
+     * Runs a single restart.
+     *
+     * @param metaheuristic true to run the metaheuristic, false to run the local search
+     * @param tree          the initial spanning tree of this restart
+     * @param random        the random source of this restart
+     * @param stop          signals that another restart reached the lower bound
+     * @param cover         receives the path cover found by the restart
+     * @param found         receives the value of {@link System#nanoTime()} when the restart found its path cover
+     * @return the path partition number found by the restart
+     */
+    private int restart(boolean metaheuristic, Tree<Vertex> tree, SplittableRandom random, BooleanSupplier stop,
+                        int[] cover, long[] found)
+    {
+        return metaheuristic ?
+                graph.metaheuristicSearch(tree, random, stop, cover, found) :
+                graph.localSearch(tree, random, stop, cover, found);
+    }
+
+
+    /**
+     * Runs a worker on a number of threads and waits for all of them to finish.
+     *
+     * @param worker  the worker to run
+     * @param workers the number of threads
+     * @throws RuntimeException if a worker failed or the calling thread was interrupted
+     */
+    private static void execute(Runnable worker, int workers)
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "multistart");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<Future<?>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++)
+                futures.add(pool.submit(worker));
+
+            for (Future<?> future : futures)
+                future.get();
+
+        } catch (ExecutionException e) {
+            throw new RuntimeException("A restart failed!", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the restarts!", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+
+    /**
+     * The seeds of the restarts, the i-th seed is the i-th value drawn from a random source seeded with the seed of
+     * the search. The seeds are drawn on demand because a timed search has no fixed number of restarts.
+     */
+    private static class Seeds {
+
+        private final SplittableRandom random;
+
+        private long[] seeds = new long[64];
+
+        private int size = 0;
+
+
+        Seeds(long seed)
+        {
+            random = new SplittableRandom(seed);
+        }
+
+
+        synchronized long get(int i)
+        {
+            if (i >= seeds.length)
+                seeds = Arrays.copyOf(seeds, Math.max(2 * seeds.length, i + 1));
+            while (size <= i)
+                seeds[size++] = random.nextLong();
+            return seeds[i];
+        }
+    }
+
+
+    /**
+     * The smallest path partition number found by the restarts so far, its path cover and the time it was found.
+     * Ties are broken by the restart order so the result does not depend on the scheduling.
+     */
+    private static class Best {
+
+        private final long start;
+
+        private volatile int ppn = Integer.MAX_VALUE;
+
+        private int[] cover;
+
+        private int index = Integer.MAX_VALUE;
+
+        private long time;
+
+        private int restarts;
+
+
+        Best(long start)
+        {
+            this.start = start;
+        }
+
+
+        int getPPN()
+        {
+            return ppn;
+        }
+
+
+        // returns whether the cover was kept, the restart must not write to it anymore then
+        // found is the value of System.nanoTime() when the restart found its cover, not when it ended
+        synchronized boolean offer(int index, int ppn, int[] cover, long found)
+        {
+            restarts++;
+            if (ppn > this.ppn) return false;
+            // the time is the first moment any restart reached the best, also if an earlier restart keeps the cover
+            if (ppn < this.ppn || found - start < time) time = found - start;
+            if (ppn == this.ppn && index > this.index) return false;
+            this.ppn = ppn;
+            this.cover = cover;
+            this.index = index;
+            return true;
+        }
+
+
+        synchronized Solution toSolution(AbstractGraph<?> graph, int lowerBound)
+        {
+            if (cover == null) return new Solution(ppn - 1, null, time, restarts, lowerBound);
+
+            PathCover pathCover = PathCover.fromNeighbours(cover, graph);
+            return new Solution(pathCover.getHamiltonianCompletionNumber(), pathCover, time, restarts, lowerBound);
+        }
+    }
+}
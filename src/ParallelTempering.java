@@ -0,0 +1,330 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+/**
+ * Runs a number of replicas of the metaheuristic at fixed temperatures and lets neighbouring replicas exchange their
+ * states. The temperatures form a geometric ladder between the initial and the final temperature of the cooling
+ * schedule of the graph. Every round each replica proposes n moves at its own temperature, the replicas run in
+ * parallel, after that the pairs of neighbouring temperatures, alternately the even and the odd pairs, swap their
+ * replicas with the probability of the Metropolis criterion. A replica stuck at a low temperature can so climb the
+ * ladder, escape its local optimum and come back down, while a good state found at a high temperature is refined
+ * at the low ones.
+ * <p>
+ * Every replica has its own random source and the exchanges are drawn by the calling thread between the rounds, so
+ * with a fixed number of rounds the result only depends on the seed and not on the number of threads.
+ *
+ * @param <Vertex> the type of the vertices
+ * @author Seppe Degryse
+ * @version 1.3
+ * @see AbstractGraph#applyParallelTempering(int, int, int, long)
+ * @see Multistart
+ */
+public class ParallelTempering<Vertex> {
+
+    private final AbstractGraph<Vertex> graph;
+
+    private final int replicas;
+
+    private final int threads;
+
+
+    ParallelTempering(AbstractGraph<Vertex> graph, int replicas, int threads) throws IllegalArgumentException
+    {
+        if (replicas < 1)
+            throw new IllegalArgumentException("At least one replica is needed!");
+        if (threads < 1)
+            throw new IllegalArgumentException("At least one thread is needed!");
+
+        this.graph = graph;
+        this.replicas = replicas;
+        this.threads = threads;
+    }
+
+
+    /**
+     * Runs a number of rounds.
+     *
+     * @param rounds the number of rounds, every replica proposes n moves per round
+     * @param seed   the seed of the replicas and the exchanges
+     * @return the best path cover and the time it was found
+     */
+    public Solution solve(int rounds, long seed)
+    {
+        return search(rounds, 0, false, seed);
+    }
+
+
+    /**
+     * Keeps running rounds until the time budget is spent. At least one round is started, even if the budget is zero.
+     *
+     * @param nanoseconds the time budget in nanoseconds
+     * @param seed        the seed of the replicas and the exchanges
+     * @return the best path cover and the time it was found
+     */
+    public Solution runFor(long nanoseconds, long seed)
+    {
+        return search(Integer.MAX_VALUE, System.nanoTime() + nanoseconds, true, seed);
+    }
+
+
+    /**
+     * Runs rounds until all of them are done, the lower bound is reached or the deadline expires.
+     *
+     * @param rounds   the maximum number of rounds
+     * @param deadline the value of {@link System#nanoTime()} at which the search stops, if timed
+     * @param timed    whether the deadline applies
+     * @param seed     the seed of the replicas and the exchanges
+     * @return the best path cover and the time it was found
+     */
+    private Solution search(int rounds, long deadline, boolean timed, long seed)
+    {
+        long start = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(seed);
+        CoolingSchedule schedule = graph.getCoolingSchedule();
+
+        // ladder[k] is the replica at the k-th temperature, from hot to cold
+        Replica[] ladder = new Replica[replicas];
+        double[] temperatures = new double[replicas];
+        double hot = schedule.getInitialTemperature();
+        double cold = schedule.getFinalTemperature();
+        for (int k = 0; k < replicas; k++) {
+            temperatures[k] = replicas == 1 ? cold : hot * Math.pow(cold / hot, (double) k / (replicas - 1));
+            ladder[k] = new Replica(graph, k, random.split());
+        }
+
+        int bound = graph.getPathPartitionLowerBound();
+        int bestPPN = Integer.MAX_VALUE;
+        for (Replica replica : ladder)
+            bestPPN = Math.min(bestPPN, replica.getBestPPN());
+
+        ExecutorService pool = threads > 1 && replicas > 1 ? createPool(Math.min(threads, replicas)) : null;
+        try {
+            for (int round = 0; round < rounds && bestPPN > bound; round++) {
+                if (round > 0 && timed && System.nanoTime() - deadline >= 0) break;
+
+                sweep(pool, ladder, temperatures, deadline, timed);
+
+                for (Replica replica : ladder)
+                    bestPPN = Math.min(bestPPN, replica.getBestPPN());
+
+                exchange(ladder, temperatures, round % 2, random);
+            }
+        } finally {
+            if (pool != null) pool.shutdownNow();
+        }
+
+        // ties are broken by the replica index, not by the temperature the replica ended at
+        Replica best = null;
+        for (Replica replica : ladder) {
+            if (best == null || replica.getBestPPN() < best.getBestPPN() ||
+                    replica.getBestPPN() == best.getBestPPN() && replica.getIndex() < best.getIndex())
+                best = replica;
+        }
+
+        // like the restarts, the time is the first moment any replica reached the best, not the replica that keeps it
+        long time = best.getFound() - start;
+        for (Replica replica : ladder) {
+            if (replica.getBestPPN() == best.getBestPPN() && replica.getFound() - start < time)
+                time = replica.getFound() - start;
+        }
+
+        PathCover pathCover = PathCover.fromNeighbours(best.getBestCover(), graph);
+        return new Solution(pathCover.getHamiltonianCompletionNumber(), pathCover, time, replicas, bound - 1);
+    }
+
+
+    /**
+     * Lets every replica propose n moves at its temperature and waits until all of them are done.
+     *
+     * @param pool         the threads to run the replicas on, or null to run them on the calling thread
+     * @param ladder       the replicas from hot to cold
+     * @param temperatures the temperatures from hot to cold
+     * @param deadline     the value of {@link System#nanoTime()} at which the replicas stop, if timed
+     * @param timed        whether the deadline applies
+     * @throws RuntimeException if a replica failed or the calling thread was interrupted
+     */
+    private void sweep(ExecutorService pool, Replica[] ladder, double[] temperatures, long deadline, boolean timed)
+    {
+        if (pool == null) {
+            for (int k = 0; k < ladder.length; k++)
+                ladder[k].sweep(temperatures[k], deadline, timed);
+            return;
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>(ladder.length);
+        for (int k = 0; k < ladder.length; k++) {
+            Replica replica = ladder[k];
+            double temperature = temperatures[k];
+            tasks.add(() -> {
+                replica.sweep(temperature, deadline, timed);
+                return null;
+            });
+        }
+
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks))
+                future.get();
+
+        } catch (ExecutionException e) {
+            throw new RuntimeException("A replica failed!", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the replicas!", e);
+        }
+    }
+
+
+    /**
+     * Swaps the replicas of neighbouring temperatures with probability min(1, exp((1/T1 - 1/T2) (E1 - E2))), where
+     * the energy E of a replica is minus its evaluation.
+     *
+     * @param ladder       the replicas from hot to cold
+     * @param temperatures the temperatures from hot to cold
+     * @param parity       0 to try the pairs starting at even positions, 1 for the odd ones
+     * @param random       the random source of the exchanges
+     */
+    private static void exchange(Replica[] ladder, double[] temperatures, int parity, SplittableRandom random)
+    {
+        for (int k = parity; k + 1 < ladder.length; k += 2) {
+            double delta = (1 / temperatures[k] - 1 / temperatures[k + 1]) *
+                    (ladder[k + 1].getEvaluation() - ladder[k].getEvaluation());
+            Metrics.increment(Metrics.Counter.EXCHANGES_PROPOSED);
+            if (delta >= 0 || random.nextDouble() < Math.exp(delta)) {
+                Metrics.increment(Metrics.Counter.EXCHANGES_ACCEPTED);
+                Replica replica = ladder[k];
+                ladder[k] = ladder[k + 1];
+                ladder[k + 1] = replica;
+            }
+        }
+    }
+
+
+    private static ExecutorService createPool(int workers)
+    {
+        return Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "tempering");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+
+    /**
+     * A path forest that is annealed at the temperature it is given, with the best path cover it has seen and the
+     * moment it was found.
+     */
+    private static class Replica {
+
+        private final AbstractGraph<?> graph;
+
+        private final int index;
+
+        private final SplittableRandom random;
+
+        private final PathForest forest;
+
+        private final int[] bestCover;
+
+        private final long[] found = new long[1];
+
+        private final int bound;
+
+        private int bestPPN;
+
+        private float evaluation;
+
+
+        Replica(AbstractGraph<?> graph, int index, SplittableRandom random)
+        {
+            int n = graph.getNumberOfVertices();
+            Tree<?> tree = graph.getInitialSpanningTree(random);
+            tree.getMinimumPathPartitionNumber();
+            int[] neighbours = new int[2 * n];
+            tree.copyPathCoverTo(neighbours);
+
+            this.graph = graph;
+            this.index = index;
+            this.random = random;
+            forest = new PathForest(graph, neighbours);
+            bestCover = new int[2 * n];
+            forest.copyTo(bestCover);
+            AbstractGraph.stamp(found);
+            bestPPN = forest.getNumberOfPaths();
+            bound = graph.getPathPartitionLowerBound();
+            evaluation = graph.evaluate(forest.getNumberOfIsolated(), bestPPN);
+        }
+
+
+        /**
+         * Proposes n moves and accepts them with the Metropolis criterion.
+         */
+        void sweep(double temperature, long deadline, boolean timed)
+        {
+            int n = graph.getNumberOfVertices();
+            int proposals = 0;
+            int accepted = 0;
+            for (; proposals < n && bestPPN > bound; proposals++) {
+                if (timed && proposals % AbstractGraph.STOP_INTERVAL == 0 && System.nanoTime() - deadline >= 0) break;
+                if (!forest.propose(random)) continue;
+
+                int paths = forest.getNumberOfPaths() + forest.getDeltaPaths();
+                int isolated = forest.getNumberOfIsolated() + forest.getDeltaIsolated();
+                float newEvaluation = graph.evaluate(isolated, paths);
+
+                if (newEvaluation < evaluation &&
+                        random.nextDouble() >= Math.exp((newEvaluation - evaluation) / temperature))
+                    continue;
+
+                forest.apply();
+                accepted++;
+                evaluation = newEvaluation;
+                if (paths < bestPPN) {
+                    bestPPN = paths;
+                    forest.copyTo(bestCover);
+                    AbstractGraph.stamp(found);
+                }
+            }
+
+            Metrics.add(Metrics.Counter.PROPOSALS, proposals);
+            Metrics.add(Metrics.Counter.ACCEPTED, accepted);
+        }
+
+
+        int getIndex()
+        {
+            return index;
+        }
+
+
+        int getBestPPN()
+        {
+            return bestPPN;
+        }
+
+
+        int[] getBestCover()
+        {
+            return bestCover;
+        }
+
+
+        // the value of System.nanoTime() when the best path cover was found
+        long getFound()
+        {
+            return found[0];
+        }
+
+
+        float getEvaluation()
+        {
+            return evaluation;
+        }
+    }
+}
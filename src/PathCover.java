@@ -0,0 +1,227 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * A partition of the vertices of a graph into paths, together with the non-edges that join consecutive paths into a
+ * hamiltonian path of the completed graph. Vertices are identified by their index in the graph.
+ *
+ * @author Seppe Degryse
+ * @version 1.0
+ * @see Solution#getPathCover()
+ */
+public class PathCover {
+
+    private final int[][] paths;
+
+    private final int[][] addedEdges;
+
+
+    private PathCover(int[][] paths)
+    {
+        this.paths = paths;
+        this.addedEdges = new int[Math.max(paths.length - 1, 0)][];
+        for (int k = 0; k + 1 < paths.length; k++)
+            addedEdges[k] = new int[]{paths[k][paths[k].length - 1], paths[k + 1][0]};
+    }
+
+
+    /**
+     * Builds a path cover from a snapshot of a linear forest, consecutive paths whose end points are adjacent in the
+     * graph are joined so every added edge is a non-edge of the graph. Runs in linear time.
+     *
+     * @param neighbours for the vertex with index i its neighbours at 2i and 2i + 1, or -1
+     * @param graph      the graph the forest spans
+     * @return the path cover
+     * @throws IllegalArgumentException if the snapshot is not a linear forest
+     * @see Tree#copyPathCoverTo(int[])
+     */
+    static PathCover fromNeighbours(int[] neighbours, AbstractGraph<?> graph) throws IllegalArgumentException
+    {
+        int n = neighbours.length / 2;
+        boolean[] visited = new boolean[n];
+        List<int[]> paths = new ArrayList<>();
+        int[] buffer = new int[n];
+        int covered = 0;
+
+        for (int start = 0; start < n; start++) {
+            if (visited[start] || neighbours[2 * start + 1] >= 0) continue;
+
+            int length = 0;
+            int previous = -1;
+            int current = start;
+            while (current >= 0) {
+                visited[current] = true;
+                buffer[length++] = current;
+                int next = neighbours[2 * current] != previous ? neighbours[2 * current] : neighbours[2 * current + 1];
+                previous = current;
+                current = next;
+            }
+            covered += length;
+
+            int[] last = paths.isEmpty() ? null : paths.get(paths.size() - 1);
+            if (last != null && areNeighbors(graph, last[last.length - 1], buffer[0])) {
+                int[] joined = Arrays.copyOf(last, last.length + length);
+                System.arraycopy(buffer, 0, joined, last.length, length);
+                paths.set(paths.size() - 1, joined);
+            } else {
+                paths.add(Arrays.copyOf(buffer, length));
+            }
+        }
+
+        if (covered != n)
+            throw new IllegalArgumentException("The snapshot contains a cycle!");
+
+        return new PathCover(paths.toArray(new int[0][]));
+    }
+
+
+    /**
+     * @return the number of paths
+     */
+    public int getNumberOfPaths()
+    {
+        return paths.length;
+    }
+
+
+    /**
+     * @return the number of edges that have to be added to the graph to make it hamiltonian
+     */
+    public int getHamiltonianCompletionNumber()
+    {
+        return addedEdges.length;
+    }
+
+
+    /**
+     * @param k the index of the path
+     * @return the vertex indices of the k-th path, in order
+     */
+    public int[] getPath(int k)
+    {
+        return paths[k].clone();
+    }
+
+
+    /**
+     * @return the vertex indices of every path
+     */
+    public int[][] getPaths()
+    {
+        int[][] copy = new int[paths.length][];
+        for (int k = 0; k < paths.length; k++)
+            copy[k] = paths[k].clone();
+        return copy;
+    }
+
+
+    /**
+     * @return the added edges as pairs of vertex indices, the k-th edge joins the end of path k to the start of
+     * path k + 1
+     */
+    public int[][] getAddedEdges()
+    {
+        int[][] copy = new int[addedEdges.length][];
+        for (int k = 0; k < addedEdges.length; k++)
+            copy[k] = addedEdges[k].clone();
+        return copy;
+    }
+
+
+    /**
+     * Returns the hamiltonian path of the completed graph, the paths one after the other.
+     *
+     * @param graph the graph the indices belong to
+     * @param <Vertex> the type of the vertices
+     * @return the vertices of the hamiltonian path
+     */
+    public <Vertex> List<Vertex> toHamiltonianPath(AbstractGraph<Vertex> graph)
+    {
+        List<Vertex> path = new ArrayList<>(graph.getNumberOfVertices());
+        for (int[] p : paths)
+            for (int i : p)
+                path.add(graph.vertexAt(i));
+        return path;
+    }
+
+
+    /**
+     * Checks the path cover against a graph in linear time: every vertex lies on exactly one path, consecutive
+     * vertices of a path are adjacent and every added edge is a non-edge joining the end of a path to the start of
+     * the next one.
+     *
+     * @param graph the graph
+     * @throws IllegalStateException if the path cover is not valid for the graph
+     */
+    public void validate(AbstractGraph<?> graph) throws IllegalStateException
+    {
+        int n = graph.getNumberOfVertices();
+        boolean[] seen = new boolean[n];
+        int count = 0;
+
+        for (int[] path : paths) {
+            if (path.length == 0)
+                throw new IllegalStateException("Empty path!");
+
+            for (int k = 0; k < path.length; k++) {
+                int v = path[k];
+                if (v < 0 || v >= n)
+                    throw new IllegalStateException("Vertex index " + v + " is not part of the graph!");
+                if (seen[v])
+                    throw new IllegalStateException("Vertex " + graph.vertexAt(v) + " is covered twice!");
+                seen[v] = true;
+                count++;
+
+                if (k > 0 && !areNeighbors(graph, path[k - 1], v))
+                    throw new IllegalStateException("Vertices " + graph.vertexAt(path[k - 1]) + " and " +
+                            graph.vertexAt(v) + " are not adjacent!");
+            }
+        }
+
+        if (count != n)
+            throw new IllegalStateException((n - count) + " vertices are not covered!");
+
+        if (addedEdges.length != Math.max(paths.length - 1, 0))
+            throw new IllegalStateException("Expected " + (paths.length - 1) + " added edges!");
+
+        for (int k = 0; k < addedEdges.length; k++) {
+            int u = addedEdges[k][0];
+            int v = addedEdges[k][1];
+            if (u != paths[k][paths[k].length - 1] || v != paths[k + 1][0])
+                throw new IllegalStateException("Added edge " + k + " does not join path " + k + " to path " + (k + 1) + "!");
+            if (areNeighbors(graph, u, v))
+                throw new IllegalStateException("Added edge " + k + " is already an edge of the graph!");
+        }
+    }
+
+
+    /**
+     * @param graph the graph
+     * @return whether the path cover is valid for the graph
+     * @see PathCover#validate(AbstractGraph)
+     */
+    public boolean isValidFor(AbstractGraph<?> graph)
+    {
+        try {
+            validate(graph);
+            return true;
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+
+    /**
+     * Scans the adjacency of the first vertex, so checking every consecutive pair of a path cover takes linear time
+     * in total.
+     */
+    private static boolean areNeighbors(AbstractGraph<?> graph, int u, int v)
+    {
+        for (int k = 0; k < graph.degreeAt(u); k++) {
+            if (graph.neighborIndexAt(u, k) == v) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,517 @@
+import java.util.SplittableRandom;
+
+
+/**
+ * A partition of the vertices of a graph into paths that can be changed one edge at a time. Every vertex stores its
+ * (at most two) neighbours on its path, every end point of a path stores the other end point of that path. A move is
+ * proposed from a random end point u and a random graph neighbour v of u:
+ * <ul>
+ *     <li>join: v is the end point of another path, the edge uv joins both paths into one.</li>
+ *     <li>relocate: v lies inside a path, the edge uv replaces one of the path edges of v. If v lies on the path of u
+ *     this is a rotation, otherwise the path of v is cut in two and one half is appended to the path of u.</li>
+ * </ul>
+ * A small fraction of the proposals breaks a random path edge instead, the only move that makes the path cover
+ * worse, so the temperature of the search decides how far it can climb out of a local optimum.
+ * <p>
+ * The change in the number of paths and isolated vertices of a proposal is known in constant time, so it can be
+ * evaluated before anything is changed. Applying a join takes constant time, applying a relocation or a break walks
+ * both halves of a path at the same pace until one of them reaches an end point, which takes time proportional to the
+ * shorter half.
+ *
+ * @author Seppe Degryse
+ * @version 1.5
+ * @see AbstractGraph#metaheuristicSearch(Tree, SplittableRandom, java.util.function.BooleanSupplier, int[])
+ */
+public class PathForest {
+
+    private static final int JOIN = 0;
+
+    private static final int RELOCATE = 1;
+
+    private static final int BREAK = 2;
+
+    // one in this many proposals is a break
+    private static final int BREAK_ODDS = 32;
+
+    /**
+     * The number of positions a copied proposal takes.
+     */
+    public static final int PROPOSAL_SIZE = 7;
+
+    private final AbstractGraph<?> graph;
+
+    // for the vertex with index i its neighbours at 2i and 2i + 1, a single neighbour is always stored at 2i
+    private int[] neighbours;
+
+    private final int[] other;
+
+    private final int[] endpoints;
+
+    private final int[] position;
+
+    private int numberOfEndpoints = 0;
+
+    private int numberOfPaths = 0;
+
+    private int numberOfIsolated = 0;
+
+    // the proposed move
+    private int type;
+
+    private int u;
+
+    private int v;
+
+    private int w;
+
+    private int deltaPaths;
+
+    private int deltaIsolated;
+
+    // the neighbour of v the proposed relocation cuts off, -1 until the removed edge was asked for
+    private int cut;
+
+
+    /**
+     * Creates a path forest from a snapshot of a linear forest. The snapshot array is used as the storage of the
+     * forest.
+     *
+     * @param graph      the graph the paths belong to
+     * @param neighbours for the vertex with index i its neighbours at 2i and 2i + 1, or -1
+     * @throws IllegalArgumentException if the snapshot is not a linear forest
+     * @see Tree#copyPathCoverTo(int[])
+     */
+    PathForest(AbstractGraph<?> graph, int[] neighbours) throws IllegalArgumentException
+    {
+        int n = graph.getNumberOfVertices();
+        this.graph = graph;
+        other = new int[n];
+        endpoints = new int[n];
+        position = new int[n];
+        reset(neighbours);
+    }
+
+
+    /**
+     * Rebuilds the forest from another snapshot of a linear forest of the same graph, the storage of the forest is
+     * kept. The snapshot array is used as the storage of the forest from now on.
+     *
+     * @param neighbours for the vertex with index i its neighbours at 2i and 2i + 1, or -1
+     * @throws IllegalArgumentException if the snapshot is not a linear forest
+     */
+    void reset(int[] neighbours) throws IllegalArgumentException
+    {
+        int n = graph.getNumberOfVertices();
+        this.neighbours = neighbours;
+        numberOfEndpoints = 0;
+        numberOfPaths = 0;
+        numberOfIsolated = 0;
+
+        int covered = 0;
+        for (int i = 0; i < n; i++) {
+            if (neighbours[2 * i] < 0 && neighbours[2 * i + 1] >= 0) {
+                neighbours[2 * i] = neighbours[2 * i + 1];
+                neighbours[2 * i + 1] = -1;
+            }
+            position[i] = -1;
+        }
+
+        for (int start = 0; start < n; start++) {
+            int degree = degree(start);
+            if (degree == 2 || position[start] >= 0) continue;
+
+            int end = start;
+            int previous = -1;
+            covered++;
+            while (degree > 0 && (previous < 0 || degree(end) == 2)) {
+                int next = step(end, previous);
+                previous = end;
+                end = next;
+                covered++;
+            }
+
+            other[start] = end;
+            other[end] = start;
+            addEndpoint(start);
+            if (end != start) addEndpoint(end);
+            if (degree == 0) numberOfIsolated++;
+            numberOfPaths++;
+        }
+
+        if (covered != n)
+            throw new IllegalArgumentException("The snapshot contains a cycle!");
+    }
+
+
+    /**
+     * @return the graph the paths belong to
+     */
+    AbstractGraph<?> getGraph()
+    {
+        return graph;
+    }
+
+
+    /**
+     * @return the number of paths
+     */
+    public int getNumberOfPaths()
+    {
+        return numberOfPaths;
+    }
+
+
+    /**
+     * @return the number of vertices that lie on a path of their own
+     */
+    public int getNumberOfIsolated()
+    {
+        return numberOfIsolated;
+    }
+
+
+    /**
+     * @return the number of path edges
+     */
+    public int getNumberOfEdges()
+    {
+        return graph.getNumberOfVertices() - numberOfPaths;
+    }
+
+
+    /**
+     * Proposes a random move.
+     *
+     * @param random the random source
+     * @return false if the drawn end point and neighbour do not give a valid move
+     */
+    public boolean propose(SplittableRandom random)
+    {
+        if (random.nextInt(BREAK_ODDS) == 0) return proposeBreak(random);
+        if (numberOfEndpoints == 0) return false;
+
+        u = endpoints[random.nextInt(numberOfEndpoints)];
+        int degree = graph.degreeAt(u);
+        if (degree == 0) return false;
+
+        v = graph.neighborIndexAt(u, random.nextInt(degree));
+        if (v == u || v == neighbours[2 * u]) return false;
+
+        if (degree(v) < 2) {
+            // both end points of the same path would close a cycle
+            if (other[u] == v) return false;
+
+            type = JOIN;
+            deltaPaths = -1;
+            deltaIsolated = -(isIsolated(u) ? 1 : 0) - (isIsolated(v) ? 1 : 0);
+            return true;
+        }
+
+        type = RELOCATE;
+        cut = -1;
+        w = neighbours[2 * v + random.nextInt(2)];
+        // the far end point of the own path can not be cut off, the rotation removes the other edge of v
+        if (w == other[u]) w = otherNeighbour(v, w);
+
+        deltaPaths = 0;
+        deltaIsolated = (isIsolated(u) ? -1 : 0) + (degree(w) == 1 ? 1 : 0);
+        return true;
+    }
+
+
+    /**
+     * Proposes to remove a random path edge.
+     *
+     * @param random the random source
+     * @return false if the drawn vertex is isolated
+     */
+    private boolean proposeBreak(SplittableRandom random)
+    {
+        u = random.nextInt(other.length);
+        int degree = degree(u);
+        if (degree == 0) return false;
+
+        v = neighbours[2 * u + random.nextInt(degree)];
+        type = BREAK;
+        deltaPaths = 1;
+        deltaIsolated = (degree == 1 ? 1 : 0) + (degree(v) == 1 ? 1 : 0);
+        return true;
+    }
+
+
+    /**
+     * @return the change in the number of paths of the proposed move
+     */
+    public int getDeltaPaths()
+    {
+        return deltaPaths;
+    }
+
+
+    /**
+     * @return the change in the number of isolated vertices of the proposed move
+     */
+    public int getDeltaIsolated()
+    {
+        return deltaIsolated;
+    }
+
+
+    /**
+     * @return the key of the edge the proposed move adds, or -1 for a break
+     * @see PathForest#edge(int, int)
+     */
+    public long getAddedEdge()
+    {
+        return type == BREAK ? -1 : edge(u, v);
+    }
+
+
+    /**
+     * Returns the edge the proposed move removes. A rotation always removes the edge of v on the side of u, whichever
+     * neighbour of v was drawn, so for a relocation the first call walks the path of v like {@link #apply()} does. The
+     * neighbour that is cut off is kept with the proposal, the move itself does not change.
+     *
+     * @return the key of the edge the proposed move removes, or -1 for a join
+     * @see PathForest#edge(int, int)
+     */
+    public long getRemovedEdge()
+    {
+        if (type == JOIN) return -1;
+        if (type == BREAK) return edge(u, v);
+
+        if (cut < 0) {
+            int wOther = otherNeighbour(v, w);
+            // u is the end point on the side of wOther, the rotation removes the edge between v and wOther
+            cut = u == other[endBeyond(w, v, wOther, v)] ? wOther : w;
+        }
+        return edge(v, cut);
+    }
+
+
+    /**
+     * Copies the proposed move, so another move can be proposed and this one restored before it is applied.
+     *
+     * @param target receives the move at {@value #PROPOSAL_SIZE} positions from the offset
+     * @param offset the first position
+     */
+    public void copyProposalTo(int[] target, int offset)
+    {
+        target[offset] = type;
+        target[offset + 1] = u;
+        target[offset + 2] = v;
+        target[offset + 3] = w;
+        target[offset + 4] = deltaPaths;
+        target[offset + 5] = deltaIsolated;
+        target[offset + 6] = cut;
+    }
+
+
+    /**
+     * Makes a copied move the proposed move again, the forest must not have changed since it was proposed.
+     *
+     * @param source the move at {@value #PROPOSAL_SIZE} positions from the offset
+     * @param offset the first position
+     */
+    public void restoreProposal(int[] source, int offset)
+    {
+        type = source[offset];
+        u = source[offset + 1];
+        v = source[offset + 2];
+        w = source[offset + 3];
+        deltaPaths = source[offset + 4];
+        deltaIsolated = source[offset + 5];
+        cut = source[offset + 6];
+    }
+
+
+    /**
+     * @return a key of the edge between two vertices that does not depend on their order
+     */
+    public static long edge(int i, int j)
+    {
+        return (long) Math.min(i, j) << 32 | Math.max(i, j);
+    }
+
+
+    /**
+     * Applies the proposed move.
+     */
+    public void apply()
+    {
+        if (type == JOIN) {
+            int p = other[u];
+            int q = other[v];
+            link(u, v);
+            other[p] = q;
+            other[q] = p;
+            numberOfPaths--;
+            return;
+        }
+
+        if (type == BREAK) {
+            // eU is the end point on the side of u, eV the one on the side of v
+            int eU = endBeyond(u, v, v, u);
+            int eV = other[eU];
+            unlink(u, v);
+            other[eU] = u;
+            other[u] = eU;
+            other[eV] = v;
+            other[v] = eV;
+            numberOfPaths++;
+            return;
+        }
+
+        // the end points on either side of v, eW on the side of w and eO on the other side
+        int wOther = otherNeighbour(v, w);
+        int eW = endBeyond(w, v, wOther, v);
+        int eO = other[eW];
+
+        if (u == eW) {
+            // rotation, u lies on the side of w: w ... u v ... eO
+            unlink(v, w);
+            link(u, v);
+            other[w] = eO;
+            other[eO] = w;
+        } else if (u == eO) {
+            // rotation, u lies on the other side: wOther ... u v ... eW
+            unlink(v, wOther);
+            link(u, v);
+            other[wOther] = eW;
+            other[eW] = wOther;
+        } else {
+            // cut the path of v, the half of v is appended to the path of u: eW ... w and p ... u v ... eO
+            int p = other[u];
+            unlink(v, w);
+            link(u, v);
+            other[eW] = w;
+            other[w] = eW;
+            other[p] = eO;
+            other[eO] = p;
+        }
+    }
+
+
+    /**
+     * Copies the current paths, in the format of {@link Tree#copyPathCoverTo(int[])}.
+     *
+     * @param target receives the neighbours of every vertex, nothing is copied if it is null
+     */
+    public void copyTo(int[] target)
+    {
+        if (target != null && target != neighbours)
+            System.arraycopy(neighbours, 0, target, 0, neighbours.length);
+    }
+
+
+    /**
+     * Walks a path in both directions at the same pace until one of the walks reaches an end point, so it takes time
+     * proportional to the shorter side.
+     *
+     * @param a         the first vertex of the first walk
+     * @param previousA the vertex the first walk comes from
+     * @param b         the first vertex of the second walk
+     * @param previousB the vertex the second walk comes from
+     * @return the end point of the path in the direction of the first walk
+     */
+    private int endBeyond(int a, int previousA, int b, int previousB)
+    {
+        while (true) {
+            if (degree(a) < 2) return a;
+            if (degree(b) < 2) return other[b];
+
+            int next = step(a, previousA);
+            previousA = a;
+            a = next;
+            next = step(b, previousB);
+            previousB = b;
+            b = next;
+        }
+    }
+
+
+    private int degree(int i)
+    {
+        return neighbours[2 * i] < 0 ? 0 : neighbours[2 * i + 1] < 0 ? 1 : 2;
+    }
+
+
+    private boolean isIsolated(int i)
+    {
+        return neighbours[2 * i] < 0;
+    }
+
+
+    /**
+     * @return the path neighbour of i that is not j
+     */
+    private int otherNeighbour(int i, int j)
+    {
+        return neighbours[2 * i] == j ? neighbours[2 * i + 1] : neighbours[2 * i];
+    }
+
+
+    /**
+     * @return the next vertex on the path when walking from previous to i, or -1 at an end point
+     */
+    private int step(int i, int previous)
+    {
+        int first = neighbours[2 * i];
+        return first != previous ? first : neighbours[2 * i + 1];
+    }
+
+
+    private void link(int i, int j)
+    {
+        attach(i, j);
+        attach(j, i);
+    }
+
+
+    private void unlink(int i, int j)
+    {
+        detach(i, j);
+        detach(j, i);
+    }
+
+
+    private void attach(int i, int j)
+    {
+        if (neighbours[2 * i] < 0) {
+            neighbours[2 * i] = j;
+            numberOfIsolated--;
+        } else {
+            neighbours[2 * i + 1] = j;
+            removeEndpoint(i);
+        }
+    }
+
+
+    private void detach(int i, int j)
+    {
+        if (neighbours[2 * i + 1] < 0) {
+            neighbours[2 * i] = -1;
+            numberOfIsolated++;
+            return;
+        }
+        if (neighbours[2 * i] == j) neighbours[2 * i] = neighbours[2 * i + 1];
+        neighbours[2 * i + 1] = -1;
+        addEndpoint(i);
+    }
+
+
+    private void addEndpoint(int i)
+    {
+        position[i] = numberOfEndpoints;
+        endpoints[numberOfEndpoints++] = i;
+    }
+
+
+    private void removeEndpoint(int i)
+    {
+        int last = endpoints[--numberOfEndpoints];
+        endpoints[position[i]] = last;
+        position[last] = position[i];
+        position[i] = -1;
+    }
+}
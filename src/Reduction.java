@@ -0,0 +1,468 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+
+/**
+ * Shrinks a graph to a kernel with the same minimum path partition number, up to a known number of paths, before it is
+ * searched, and lifts a path cover of the kernel back to the graph. Every vertex of the kernel stands for a path of
+ * the graph, its group, and the following rules are applied until none of them applies anymore:
+ * <ul>
+ *     <li>surplus leaves: a vertex with three or more leaves can join at most two of them, every other leaf is a path
+ *     of its own in some minimum path cover, so it is removed and counted as one path.</li>
+ *     <li>pendant chains: a leaf whose neighbour has degree two is always joined to it in some minimum path cover,
+ *     the two are merged into a single leaf.</li>
+ *     <li>internal chains: a chain of vertices of degree two between two different vertices is either traversed
+ *     entirely, attached to one side or a path of its own, just like a single vertex, so it is merged into one.</li>
+ * </ul>
+ * The chains of the sparse graphs collapse and stars lose their surplus leaves, the regular graphs such as the
+ * circle_like graphs have no vertex of degree one or two and keep their size. The minimum path partition number does
+ * not decompose at articulation points or bridges, a path can pass through them, so the graph is not split there.
+ * <p>
+ * If no rule applies the graph itself is the kernel and lifting only rebuilds the path cover.
+ *
+ * @author Seppe Degryse
+ * @version 1.1
+ * @see Reduction#solve(Function)
+ */
+public class Reduction {
+
+    private final AbstractGraph<?> graph;
+
+    private final IntUnionFind groups;
+
+    // for the root of every group: its end points in the graph and its degree in the kernel
+    private final int[] ends;
+
+    private final int[] degree;
+
+    private final boolean[] removed;
+
+    // the neighbours of every vertex in the path of its group, like PathForest
+    private final int[] chain;
+
+    private final List<Integer> removedGroups = new ArrayList<>();
+
+    // marks the groups seen by the current neighbour scan
+    private final int[] mark;
+
+    private int stamp = 0;
+
+    // the root of the group of every kernel vertex
+    private int[] roots;
+
+    private AbstractGraph<?> kernel;
+
+
+    private Reduction(AbstractGraph<?> graph)
+    {
+        int n = graph.getNumberOfVertices();
+        this.graph = graph;
+        groups = new IntUnionFind(n);
+        ends = new int[2 * n];
+        degree = new int[n];
+        removed = new boolean[n];
+        chain = new int[2 * n];
+        Arrays.fill(chain, -1);
+        mark = new int[n];
+
+        // duplicate edges and loops do not count towards the degree
+        int[] seen = new int[n];
+        Arrays.fill(seen, -1);
+        for (int v = 0; v < n; v++) {
+            ends[2 * v] = v;
+            ends[2 * v + 1] = v;
+            for (int k = 0; k < graph.degreeAt(v); k++) {
+                int w = graph.neighborIndexAt(v, k);
+                if (w != v && seen[w] != v) {
+                    seen[w] = v;
+                    degree[v]++;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Reduces a graph.
+     *
+     * @param graph the graph
+     * @return the reduction, its kernel is the graph itself if no rule applies
+     */
+    public static Reduction of(AbstractGraph<?> graph)
+    {
+        Reduction reduction = new Reduction(graph);
+        reduction.reduce();
+        reduction.buildKernel();
+        return reduction;
+    }
+
+
+    /**
+     * @return the graph that has to be searched
+     */
+    public AbstractGraph<?> getKernel()
+    {
+        return kernel;
+    }
+
+
+    /**
+     * @return the number of paths that were removed, they are added to every lifted path cover
+     */
+    public int getNumberOfRemovedPaths()
+    {
+        return removedGroups.size();
+    }
+
+
+    /**
+     * Searches the kernel and lifts its best path cover back to the graph.
+     *
+     * @param search the search to run on the kernel, e.g. {@code kernel -> kernel.applyMetaheuristicWithin(1000)}
+     * @return the solution for the graph
+     */
+    public Solution solve(Function<AbstractGraph<?>, Solution> search)
+    {
+        return lift(search.apply(kernel));
+    }
+
+
+    /**
+     * Lifts a solution of the kernel back to the graph.
+     *
+     * @param solution a solution of the kernel with a path cover
+     * @return the solution for the graph
+     * @throws IllegalArgumentException if the solution has no path cover
+     */
+    public Solution lift(Solution solution) throws IllegalArgumentException
+    {
+        if (solution.getPathCover() == null)
+            throw new IllegalArgumentException("The solution has no path cover!");
+
+        // every removed path adds one to the bound of the kernel
+        PathCover pathCover = lift(solution.getPathCover());
+        int lowerBound = Math.max(solution.getLowerBound() + getNumberOfRemovedPaths(),
+                graph.getPathPartitionLowerBound() - 1);
+        return new Solution(pathCover.getHamiltonianCompletionNumber(), pathCover, solution.getTimeToBest(),
+                solution.getRestarts(), lowerBound);
+    }
+
+
+    /**
+     * Lifts a path cover of the kernel back to the graph. Every kernel vertex is replaced by the path of its group,
+     * turned so it starts next to the previous vertex, and every removed group is added as a path of its own.
+     *
+     * @param pathCover a path cover of the kernel
+     * @return the path cover of the graph
+     */
+    public PathCover lift(PathCover pathCover)
+    {
+        int n = graph.getNumberOfVertices();
+        int[] neighbours = new int[2 * n];
+        Arrays.fill(neighbours, -1);
+
+        for (int[] path : pathCover.getPaths()) {
+            int last = -1;
+            for (int k = 0; k < path.length; k++) {
+                int root = roots[path[k]];
+                int start;
+                if (last >= 0) {
+                    start = isNeighbour(ends[2 * root], last) ? ends[2 * root] : ends[2 * root + 1];
+                    connect(neighbours, last, start);
+                } else if (k + 1 < path.length) {
+                    start = otherEnd(root, endTowards(root, roots[path[k + 1]]));
+                } else {
+                    start = ends[2 * root];
+                }
+                last = copyGroup(neighbours, start);
+            }
+        }
+        for (int root : removedGroups)
+            copyGroup(neighbours, ends[2 * root]);
+
+        return PathCover.fromNeighbours(neighbours, graph);
+    }
+
+
+    /**
+     * Applies the rules until none of them applies anymore.
+     */
+    private void reduce()
+    {
+        int n = graph.getNumberOfVertices();
+        ArrayDeque<Integer> queue = new ArrayDeque<>(n);
+        for (int v = 0; v < n; v++)
+            queue.add(v);
+
+        while (!queue.isEmpty()) {
+            int v = queue.poll();
+            if (groups.find(v) != v || removed[v]) continue;
+
+            if (degree[v] == 1) {
+                int u = firstNeighbour(v);
+                if (degree[u] == 2) {
+                    queue.add(merge(u, v));
+                } else if (degree[u] >= 3 && removeSurplusLeaves(u)) {
+                    queue.add(u);
+                }
+            } else if (degree[v] == 2) {
+                int[] pair = new int[2];
+                neighbours(v, pair);
+                int leaf = degree[pair[0]] == 1 ? pair[0] : degree[pair[1]] == 1 ? pair[1] : -1;
+                int merged = leaf >= 0 ? merge(v, leaf) : mergeChain(v, pair);
+                if (merged >= 0) queue.add(merged);
+            }
+        }
+    }
+
+
+    /**
+     * Removes all leaves of a vertex but two.
+     *
+     * @param u the root of a group with three or more neighbours
+     * @return whether leaves were removed
+     */
+    private boolean removeSurplusLeaves(int u)
+    {
+        int[] neighbours = new int[degree[u]];
+        int count = neighbours(u, neighbours);
+
+        int leaves = 0;
+        for (int i = 0; i < count; i++) {
+            int w = neighbours[i];
+            if (degree[w] != 1) continue;
+            if (++leaves <= 2) continue;
+
+            removed[w] = true;
+            removedGroups.add(w);
+            degree[u]--;
+        }
+        return leaves > 2;
+    }
+
+
+    /**
+     * Merges the maximal chain of groups of degree two through a group, if it lies between two different groups.
+     *
+     * @param v    the root of a group of degree two
+     * @param pair the roots of the two neighbours of the group
+     * @return the root of the merged group, or -1 if nothing was merged
+     */
+    private int mergeChain(int v, int[] pair)
+    {
+        // walk to both ends of the chain, the chain is a cycle if a walk comes back to v
+        int[] next = new int[2];
+        int[] last = new int[2];
+        int[] end = new int[2];
+        for (int side = 0; side < 2; side++) {
+            int previous = v;
+            int current = pair[side];
+            while (degree[current] == 2) {
+                if (current == v) return -1;
+                neighbours(current, next);
+                int following = next[0] != previous ? next[0] : next[1];
+                previous = current;
+                current = following;
+            }
+            last[side] = previous;
+            end[side] = current;
+        }
+        if (last[0] == last[1] || end[0] == end[1]) return -1;
+
+        // collect the groups from the first side to the second before they are merged one by one
+        List<Integer> members = new ArrayList<>();
+        int previous = end[0];
+        int current = last[0];
+        members.add(current);
+        while (current != last[1]) {
+            neighbours(current, next);
+            int following = next[0] != previous ? next[0] : next[1];
+            previous = current;
+            current = following;
+            members.add(current);
+        }
+
+        int group = members.get(0);
+        for (int k = 1; k < members.size(); k++)
+            group = merge(group, members.get(k));
+        return group;
+    }
+
+
+    /**
+     * Merges two adjacent groups of degree at most two into one path.
+     *
+     * @param a the root of the first group
+     * @param b the root of the second group
+     * @return the root of the merged group
+     */
+    private int merge(int a, int b)
+    {
+        int x = endTowards(a, b);
+        int y = endTowards(b, a);
+        int endA = otherEnd(a, x);
+        int endB = otherEnd(b, y);
+        connect(chain, x, y);
+
+        int mergedDegree = degree[a] + degree[b] - 2;
+        groups.union(a, b);
+        int root = groups.find(a);
+        ends[2 * root] = endA;
+        ends[2 * root + 1] = endB;
+        degree[root] = mergedDegree;
+        return root;
+    }
+
+
+    /**
+     * Collects the roots of the groups next to a group.
+     *
+     * @param root   the root of the group
+     * @param target receives the roots
+     * @return the number of roots, at most the length of the target
+     */
+    private int neighbours(int root, int[] target)
+    {
+        stamp++;
+        int count = 0;
+        int endCount = ends[2 * root] == ends[2 * root + 1] ? 1 : 2;
+        for (int e = 0; e < endCount; e++) {
+            int v = ends[2 * root + e];
+            for (int k = 0; k < graph.degreeAt(v) && count < target.length; k++) {
+                int w = groups.find(graph.neighborIndexAt(v, k));
+                if (w == root || removed[w] || mark[w] == stamp) continue;
+
+                mark[w] = stamp;
+                target[count++] = w;
+            }
+        }
+        return count;
+    }
+
+
+    /**
+     * @return the root of a group next to a group
+     */
+    private int firstNeighbour(int root)
+    {
+        int[] target = new int[1];
+        neighbours(root, target);
+        return target[0];
+    }
+
+
+    /**
+     * @return the end point of group a that is adjacent to group b
+     */
+    private int endTowards(int a, int b)
+    {
+        for (int e = 0; e < 2; e++) {
+            int v = ends[2 * a + e];
+            for (int k = 0; k < graph.degreeAt(v); k++) {
+                if (groups.find(graph.neighborIndexAt(v, k)) == b) return v;
+            }
+        }
+        throw new IllegalStateException("The groups are not adjacent!");
+    }
+
+
+    /**
+     * @return the end point of a group that is not the given one, or the given one if the group has one vertex
+     */
+    private int otherEnd(int root, int end)
+    {
+        return ends[2 * root] == end ? ends[2 * root + 1] : ends[2 * root];
+    }
+
+
+    /**
+     * @return whether vertices u and v are adjacent in the graph
+     */
+    private boolean isNeighbour(int u, int v)
+    {
+        for (int k = 0; k < graph.degreeAt(u); k++) {
+            if (graph.neighborIndexAt(u, k) == v) return true;
+        }
+        return false;
+    }
+
+
+    /**
+     * Copies the path of a group into a path cover snapshot, walking from one of its end points.
+     *
+     * @return the vertex at the other end
+     */
+    private int copyGroup(int[] neighbours, int start)
+    {
+        int previous = -1;
+        int current = start;
+        while (true) {
+            int next = chain[2 * current] != previous ? chain[2 * current] : chain[2 * current + 1];
+            if (next < 0 || next == previous) return current;
+            connect(neighbours, current, next);
+            previous = current;
+            current = next;
+        }
+    }
+
+
+    /**
+     * Adds an edge to a path cover snapshot.
+     */
+    private static void connect(int[] neighbours, int u, int v)
+    {
+        neighbours[2 * u + (neighbours[2 * u] < 0 ? 0 : 1)] = v;
+        neighbours[2 * v + (neighbours[2 * v] < 0 ? 0 : 1)] = u;
+    }
+
+
+    /**
+     * Builds the kernel from the groups that were not removed, the kernel vertex k is labelled k.
+     */
+    private void buildKernel()
+    {
+        int n = graph.getNumberOfVertices();
+        int[] index = new int[n];
+        Arrays.fill(index, -1);
+        int size = 0;
+        for (int v = 0; v < n; v++) {
+            if (groups.find(v) == v && !removed[v]) index[v] = size++;
+        }
+
+        roots = new int[size];
+        for (int v = 0; v < n; v++) {
+            if (index[v] >= 0) roots[index[v]] = v;
+        }
+
+        if (size == n) {
+            kernel = graph;
+            return;
+        }
+
+        int[] offsets = new int[size + 1];
+        int[] buffer = new int[16];
+        int[] targets = new int[16];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int root = roots[i];
+            if (buffer.length < degree[root]) buffer = new int[Math.max(degree[root], 2 * buffer.length)];
+            int found = neighbours(root, buffer);
+            for (int j = 0; j < found; j++)
+                buffer[j] = index[buffer[j]];
+            Arrays.sort(buffer, 0, found);
+
+            if (targets.length < count + found) targets = Arrays.copyOf(targets, Math.max(count + found, 2 * targets.length));
+            System.arraycopy(buffer, 0, targets, count, found);
+            count += found;
+            offsets[i + 1] = count;
+        }
+
+        int[] labels = new int[size];
+        for (int i = 0; i < size; i++)
+            labels[i] = i;
+        kernel = CsrGraph.fromArrays(labels, offsets, Arrays.copyOf(targets, count), count / 2);
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * The result of a search: the best estimate for the hamiltonian completion number, the path cover that achieves it,
+ * the moment it was found and a lower bound that proves it optimal if both are equal.
+ *
+ * @author Seppe Degryse
+ * @version 1.3
+ * @see AbstractGraph#applyMetaheuristicWithin(long, int, long)
+ * @see AbstractGraph#getMetaheuristicSolution(int, int, long)
+ */
+public class Solution {
+
+    private final int hamiltonianCompletionNumber;
+
+    private final PathCover pathCover;
+
+    private final long timeToBest;
+
+    private final int restarts;
+
+    private final int lowerBound;
+
+
+    Solution(int hamiltonianCompletionNumber, PathCover pathCover, long timeToBest, int restarts, int lowerBound)
+    {
+        this.hamiltonianCompletionNumber = hamiltonianCompletionNumber;
+        this.pathCover = pathCover;
+        this.timeToBest = timeToBest;
+        this.restarts = restarts;
+        this.lowerBound = lowerBound;
+    }
+
+
+    /**
+     * @return the best estimate for the hamiltonian completion number
+     */
+    public int getHamiltonianCompletionNumber()
+    {
+        return hamiltonianCompletionNumber;
+    }
+
+
+    /**
+     * @return the path cover and the added edges of the best estimate, or null if no restart was run
+     */
+    public PathCover getPathCover()
+    {
+        return pathCover;
+    }
+
+
+    /**
+     * @return the time in nanoseconds between the start of the search and the moment the search first found the best
+     * estimate
+     */
+    public long getTimeToBest()
+    {
+        return timeToBest;
+    }
+
+
+    /**
+     * @return the number of restarts that were run
+     */
+    public int getRestarts()
+    {
+        return restarts;
+    }
+
+
+    /**
+     * @return a lower bound on the hamiltonian completion number
+     * @see AbstractGraph#getPathPartitionLowerBound()
+     */
+    public int getLowerBound()
+    {
+        return lowerBound;
+    }
+
+
+    /**
+     * @return whether the estimate equals the lower bound, which proves it is the hamiltonian completion number
+     */
+    public boolean isOptimal()
+    {
+        return hamiltonianCompletionNumber == lowerBound;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "Solution: " + hamiltonianCompletionNumber + (isOptimal() ? ", optimal" : "") + " (found after " +
+                timeToBest / 1000000 + "ms, " + restarts + " restarts)";
+    }
+}
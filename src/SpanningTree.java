@@ -0,0 +1,206 @@
+import java.util.SplittableRandom;
+
+
+/**
+ * The construction of the spanning tree a restart starts from. The path cover of a tree with few leaves and few
+ * branches is close to a hamiltonian path already, so the search needs fewer moves to reach a good path cover than
+ * from a bushy tree. Every construction grows the tree from a root and only adds edges between vertices of the same
+ * component as the root.
+ *
+ * @author Seppe Degryse
+ * @version 1.1
+ * @see AbstractGraph#setSpanningTree(SpanningTree)
+ */
+public enum SpanningTree {
+
+    /**
+     * The original construction: every vertex taken from a stack adopts all its unvisited neighbours. The tree is
+     * bushy, most of its vertices are leaves.
+     */
+    BUSHY {
+        <Vertex> void grow(AbstractGraph<Vertex> graph, Tree<Vertex> tree, int root, SplittableRandom random)
+        {
+            int[] stack = tree.constructionBuffer(0);
+            boolean[] visited = tree.reachedBuffer();
+            int size = 0;
+            stack[size++] = root;
+            visited[root] = true;
+
+            while (size > 0) {
+                int v = stack[--size];
+                for (int k = 0; k < graph.degreeAt(v); k++) {
+                    int u = graph.neighborIndexAt(v, k);
+                    if (visited[u]) continue;
+                    visited[u] = true;
+                    tree.addEdgeAt(v, u);
+                    stack[size++] = u;
+                }
+            }
+        }
+    },
+
+    /**
+     * A depth first search tree that visits the neighbours of every vertex from a random position on. It follows a
+     * long path until it gets stuck, so it only branches where the search had to backtrack.
+     */
+    DEPTH_FIRST {
+        <Vertex> void grow(AbstractGraph<Vertex> graph, Tree<Vertex> tree, int root, SplittableRandom random)
+        {
+            depthFirst(graph, tree, root, random, false);
+        }
+    },
+
+    /**
+     * A depth first search tree that, when it backtracks to a vertex with an unvisited neighbour, hangs that neighbour
+     * below a leaf of the tree instead if the leaf is adjacent to it. A leaf that adopts a vertex stops being a leaf,
+     * so the tree only gets a new leaf where no leaf is adjacent to the next vertex.
+     */
+    MIN_LEAF {
+        <Vertex> void grow(AbstractGraph<Vertex> graph, Tree<Vertex> tree, int root, SplittableRandom random)
+        {
+            depthFirst(graph, tree, root, random, true);
+        }
+    },
+
+    /**
+     * Warnsdorff's rule: the path is extended to the unvisited neighbour with the fewest unvisited neighbours of its
+     * own, ties are broken at random. Vertices that are about to be cut off are visited first, so the path gets stuck
+     * less often than with a plain depth first search.
+     */
+    WARNSDORFF {
+        <Vertex> void grow(AbstractGraph<Vertex> graph, Tree<Vertex> tree, int root, SplittableRandom random)
+        {
+            int n = graph.getNumberOfVertices();
+            int[] stack = tree.constructionBuffer(0);
+            int[] remaining = tree.constructionBuffer(1);
+            boolean[] visited = tree.reachedBuffer();
+            for (int v = 0; v < n; v++)
+                remaining[v] = graph.degreeAt(v);
+
+            int size = 0;
+            stack[size++] = root;
+            visit(graph, root, visited, remaining);
+
+            while (size > 0) {
+                int v = stack[size - 1];
+                if (remaining[v] == 0) {
+                    size--;
+                    continue;
+                }
+
+                int next = -1;
+                int ties = 0;
+                for (int k = 0; k < graph.degreeAt(v); k++) {
+                    int u = graph.neighborIndexAt(v, k);
+                    if (visited[u]) continue;
+                    if (next < 0 || remaining[u] < remaining[next]) {
+                        next = u;
+                        ties = 1;
+                    } else if (remaining[u] == remaining[next] && random.nextInt(++ties) == 0) {
+                        next = u;
+                    }
+                }
+
+                visit(graph, next, visited, remaining);
+                tree.addEdgeAt(v, next);
+                stack[size++] = next;
+            }
+        }
+    },
+
+    /**
+     * Every restart picks one of the other constructions at random, so the restarts start from trees of different
+     * shapes.
+     */
+    MIXED {
+        <Vertex> void grow(AbstractGraph<Vertex> graph, Tree<Vertex> tree, int root, SplittableRandom random)
+        {
+            CONSTRUCTIONS[random.nextInt(CONSTRUCTIONS.length)].grow(graph, tree, root, random);
+        }
+    };
+
+
+    private static final SpanningTree[] CONSTRUCTIONS = {BUSHY, DEPTH_FIRST, MIN_LEAF, WARNSDORFF};
+
+
+    /**
+     * Adds the edges of a spanning tree of the component of the root to an empty tree.
+     *
+     * @param graph  the graph
+     * @param tree   the empty tree, with the same vertex indices as the graph, its construction buffers are used
+     * @param root   the index of the root
+     * @param random the random source of the construction
+     * @param <Vertex> the type of the vertices
+     */
+    abstract <Vertex> void grow(AbstractGraph<Vertex> graph, Tree<Vertex> tree, int root, SplittableRandom random);
+
+
+    /**
+     * Returns the construction with a given name, the case is ignored and a dash stands for an underscore.
+     *
+     * @param name the name, bushy, depth-first, min-leaf, warnsdorff or mixed
+     * @return the construction
+     * @throws IllegalArgumentException if there is no construction with the name
+     */
+    public static SpanningTree of(String name) throws IllegalArgumentException
+    {
+        for (SpanningTree construction : values()) {
+            if (construction.name().equalsIgnoreCase(name.replace('-', '_'))) return construction;
+        }
+        throw new IllegalArgumentException("Unknown spanning tree " + name + "!");
+    }
+
+
+    private static void depthFirst(AbstractGraph<?> graph, Tree<?> tree, int root, SplittableRandom random,
+                                   boolean preferLeaves)
+    {
+        int[] stack = tree.constructionBuffer(0);
+        // the neighbours of a vertex are visited from a random offset on, next counts the ones that were tried
+        int[] offset = tree.constructionBuffer(1);
+        int[] next = tree.constructionBuffer(2);
+        boolean[] visited = tree.reachedBuffer();
+
+        int size = 0;
+        stack[size++] = root;
+        visited[root] = true;
+        offset[root] = graph.degreeAt(root) > 0 ? random.nextInt(graph.degreeAt(root)) : 0;
+
+        while (size > 0) {
+            int v = stack[size - 1];
+            int degree = graph.degreeAt(v);
+            if (next[v] == degree) {
+                size--;
+                continue;
+            }
+
+            int k = offset[v] + next[v]++;
+            int u = graph.neighborIndexAt(v, k < degree ? k : k - degree);
+            if (visited[u]) continue;
+
+            int parent = v;
+            // adopting u would make v branch, an end of a path of the tree can adopt it without branching
+            if (preferLeaves && tree.degreeAt(v) >= 2) {
+                for (int l = 0; l < graph.degreeAt(u); l++) {
+                    int w = graph.neighborIndexAt(u, l);
+                    if (visited[w] && tree.degreeAt(w) == 1) {
+                        parent = w;
+                        break;
+                    }
+                }
+            }
+
+            visited[u] = true;
+            tree.addEdgeAt(parent, u);
+            offset[u] = graph.degreeAt(u) > 0 ? random.nextInt(graph.degreeAt(u)) : 0;
+            stack[size++] = u;
+        }
+    }
+
+
+    private static void visit(AbstractGraph<?> graph, int v, boolean[] visited, int[] remaining)
+    {
+        visited[v] = true;
+        for (int k = 0; k < graph.degreeAt(v); k++)
+            remaining[graph.neighborIndexAt(v, k)]--;
+    }
+}
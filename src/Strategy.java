@@ -0,0 +1,40 @@
+/**
+ * The metaheuristic a restart runs.
+ *
+ * @author Seppe Degryse
+ * @version 1.0
+ * @see AbstractGraph#setStrategy(Strategy)
+ */
+public enum Strategy {
+
+    /**
+     * Simulated annealing of the path cover, the temperature follows the cooling schedule of the graph.
+     *
+     * @see CoolingSchedule
+     */
+    ANNEALING,
+
+    /**
+     * Tabu search of the path cover: every step applies the best of a sample of moves that does not touch a recently
+     * changed edge.
+     *
+     * @see TabuSearch
+     */
+    TABU;
+
+
+    /**
+     * Returns the strategy with a given name, the case is ignored.
+     *
+     * @param name the name, annealing or tabu
+     * @return the strategy
+     * @throws IllegalArgumentException if there is no strategy with the name
+     */
+    public static Strategy of(String name) throws IllegalArgumentException
+    {
+        for (Strategy strategy : values()) {
+            if (strategy.name().equalsIgnoreCase(name)) return strategy;
+        }
+        throw new IllegalArgumentException("Unknown strategy " + name + "!");
+    }
+}
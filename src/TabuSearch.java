@@ -0,0 +1,235 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.BooleanSupplier;
+
+
+/**
+ * Searches the path cover of a spanning tree with tabu search. Every step samples a number of moves of the
+ * {@link PathForest} and applies the best one, even if it makes the path cover worse, so the search keeps moving
+ * where the annealer would reject. The edges that were added or removed by the last steps are tabu: a move that
+ * touches one of them is skipped, unless it leads to fewer paths than the best path cover so far. The search stops
+ * when a number of steps in a row did not improve the best path cover.
+ * <p>
+ * The tabu list is a ring buffer of edge keys with a hash table next to it, so both adding an edge and checking one
+ * take constant time and nothing is allocated during the search.
+ *
+ * @author Seppe Degryse
+ * @version 1.2
+ * @see Strategy#TABU
+ */
+public class TabuSearch {
+
+    /**
+     * The number of edges that are tabu.
+     */
+    public static final int TENURE = 16;
+
+    /**
+     * The number of moves sampled every step.
+     */
+    public static final int CANDIDATES = 16;
+
+    // the search stops after this many steps per vertex without improvement
+    private static final int PATIENCE = 4;
+
+    private final AbstractGraph<?> graph;
+
+    private final TabuList tabu = new TabuList(TENURE);
+
+    private final int[] candidate = new int[PathForest.PROPOSAL_SIZE];
+
+
+    TabuSearch(AbstractGraph<?> graph)
+    {
+        this.graph = graph;
+    }
+
+
+    /**
+     * Runs the tabu search from the path cover of a tree.
+     *
+     * @param tree   the tree to start from
+     * @param random the random source of the moves
+     * @param stop   checked every {@value AbstractGraph#STOP_INTERVAL} steps, the search returns as soon as it is true
+     * @param cover  receives the path cover of the returned path partition number, may be null
+     * @param found  receives the value of {@link System#nanoTime()} when the cover was found, may be null
+     * @return the smallest path partition number that was found
+     */
+    public int search(Tree<?> tree, SplittableRandom random, BooleanSupplier stop, int[] cover, long[] found)
+    {
+        int n = graph.getNumberOfVertices();
+        PathForest forest = tree.getPathForest(graph);
+
+        int smallestPPN = forest.getNumberOfPaths();
+        forest.copyTo(cover);
+        AbstractGraph.stamp(found);
+        int bound = graph.getPathPartitionLowerBound();
+        long patience = (long) PATIENCE * n;
+        long stagnant = 0;
+        long proposals = 0;
+        long applied = 0;
+        long steps = 0;
+
+        for (; smallestPPN > bound && stagnant < patience; steps++) {
+            if (steps % AbstractGraph.STOP_INTERVAL == 0 && stop.getAsBoolean()) break;
+
+            float bestEvaluation = Float.NEGATIVE_INFINITY;
+            boolean chosen = false;
+            for (int k = 0; k < CANDIDATES; k++) {
+                proposals++;
+                if (!forest.propose(random)) continue;
+
+                int paths = forest.getNumberOfPaths() + forest.getDeltaPaths();
+                boolean aspiration = paths < smallestPPN;
+                if (!aspiration && (tabu.contains(forest.getAddedEdge()) || tabu.contains(forest.getRemovedEdge())))
+                    continue;
+
+                float evaluation = graph.evaluate(forest.getNumberOfIsolated() + forest.getDeltaIsolated(), paths);
+                if (evaluation > bestEvaluation) {
+                    bestEvaluation = evaluation;
+                    forest.copyProposalTo(candidate, 0);
+                    chosen = true;
+                }
+            }
+
+            stagnant++;
+            if (!chosen) continue;
+
+            forest.restoreProposal(candidate, 0);
+            tabu.add(forest.getAddedEdge());
+            tabu.add(forest.getRemovedEdge());
+            forest.apply();
+            applied++;
+
+            if (forest.getNumberOfPaths() < smallestPPN) {
+                smallestPPN = forest.getNumberOfPaths();
+                forest.copyTo(cover);
+                AbstractGraph.stamp(found);
+                Metrics.improved(smallestPPN);
+                stagnant = 0;
+            }
+        }
+
+        Metrics.add(Metrics.Counter.PROPOSALS, proposals);
+        Metrics.add(Metrics.Counter.ACCEPTED, applied);
+        return smallestPPN;
+    }
+
+
+    /**
+     * The edges that were changed last. A ring buffer keeps them in order, so the oldest edge is forgotten when a new
+     * one is added to a full list, and an open addressing hash table counts how often every edge is in the buffer.
+     * The keys are non-negative, -1 is ignored.
+     */
+    static class TabuList {
+
+        private static final long EMPTY = -1;
+
+        private final long[] ring;
+
+        private int head = 0;
+
+        private int size = 0;
+
+        // linear probing, a deleted key is filled by moving the keys after it back
+        private final long[] keys;
+
+        private final int[] counts;
+
+        private final int mask;
+
+
+        TabuList(int capacity) throws IllegalArgumentException
+        {
+            if (capacity < 1)
+                throw new IllegalArgumentException("The tabu list needs room for at least one edge!");
+
+            ring = new long[capacity];
+            // at most a quarter of the table is used
+            int tableSize = Integer.highestOneBit(4 * capacity - 1) << 1;
+            keys = new long[tableSize];
+            counts = new int[tableSize];
+            mask = tableSize - 1;
+            Arrays.fill(keys, EMPTY);
+        }
+
+
+        /**
+         * Adds an edge, the oldest edge is forgotten if the list is full.
+         *
+         * @param edge the key of the edge, nothing is added if it is -1
+         */
+        void add(long edge)
+        {
+            if (edge < 0) return;
+
+            if (size == ring.length) {
+                remove(ring[head]);
+            } else {
+                size++;
+            }
+            ring[head] = edge;
+            head = head + 1 == ring.length ? 0 : head + 1;
+
+            int slot = slot(edge);
+            while (keys[slot] != EMPTY && keys[slot] != edge)
+                slot = (slot + 1) & mask;
+            keys[slot] = edge;
+            counts[slot]++;
+        }
+
+
+        /**
+         * @param edge the key of an edge
+         * @return whether the edge is in the list, false for -1
+         */
+        boolean contains(long edge)
+        {
+            if (edge < 0) return false;
+
+            for (int slot = slot(edge); keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+                if (keys[slot] == edge) return true;
+            }
+            return false;
+        }
+
+
+        /**
+         * @return the number of edges in the list, an edge that was added twice counts twice
+         */
+        int size()
+        {
+            return size;
+        }
+
+
+        private void remove(long edge)
+        {
+            int slot = slot(edge);
+            while (keys[slot] != edge)
+                slot = (slot + 1) & mask;
+            if (--counts[slot] > 0) return;
+
+            // move the keys of the probe sequence back so none of them is cut off by the hole
+            int hole = slot;
+            keys[hole] = EMPTY;
+            for (int next = (hole + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+                int home = slot(keys[next]);
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    counts[hole] = counts[next];
+                    keys[next] = EMPTY;
+                    counts[next] = 0;
+                    hole = next;
+                }
+            }
+        }
+
+
+        private int slot(long edge)
+        {
+            long hash = edge * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ hash >>> 32) & mask;
+        }
+    }
+}
@@ -2,40 +2,136 @@ import java.util.*;
 
 
 /**
- * A tree is a graph with no cycles.
+ * A tree is a graph with no cycles. A tree that is built for a graph shares the vertex indices of that graph, so the
+ * move operator can walk both with plain index arithmetic.
  * @param <Vertex> the type of the vertices
  * @see Graph
  * @author Seppe Degryse
- * @version 2.4
+ * @version 4.4
  */
 public class Tree<Vertex> extends Graph<Vertex> implements TreeInterface<Vertex> {
 
-    private Vertex root = null;
+    private final AbstractGraph<Vertex> source;
 
-    private final UnionFind<Vertex> vertexUnionFind;
+    private int root = -1;
+
+    private final IntUnionFind vertexUnionFind;
+
+    // the source if it is dense, its rows are matched against the bitset of the vertices with degree 0 or 1
+    private final DenseGraph dense;
+
+    private final long[] endpoints;
+
+    private int numberOfLeaves = 0;
+
+    private int numberOfIsolated = 0;
+
+    // scratch buffers of the path cover and the move operator, sized to the number of vertices and reused
+    private int[] stack = new int[0];
+
+    private int[] processingOrder = new int[0];
+
+    private long[] visited = new long[0];
+
+    private int[] vertexOrder = new int[0];
+
+    // the last minimum path cover: the parent of every vertex in the traversal and whether its edge to it is selected
+    private int[] parent = new int[0];
+
+    private int[] pathDegree = new int[0];
+
+    private long[] selected = new long[0];
+
+    private int numberOfCoverEdges = 0;
+
+    private boolean pathCoverIsCurrent = false;
+
+    // scratch buffers of the spanning tree constructions and the path forest of the search, kept by clear
+    private final int[][] constructionBuffers = new int[CONSTRUCTION_BUFFERS][];
+
+    private boolean[] reached = new boolean[0];
+
+    private PathForest forest;
+
+    private int[] forestNeighbours;
+
+    /**
+     * The number of int buffers a spanning tree construction can use.
+     */
+    static final int CONSTRUCTION_BUFFERS = 3;
 
 
     Tree()
     {
-        vertexUnionFind = new UnionFind<>();
+        source = null;
+        vertexUnionFind = new IntUnionFind();
+        dense = null;
+        endpoints = null;
     }
 
 
     Tree(int size)
     {
         super(size);
-        vertexUnionFind = new UnionFind<>(size);
+        source = null;
+        vertexUnionFind = new IntUnionFind(size);
+        dense = null;
+        endpoints = null;
+    }
+
+
+    /**
+     * Creates a tree without edges on the vertices of a graph. The tree uses the same vertex indices as the graph.
+     *
+     * @param source the graph the tree spans
+     */
+    Tree(AbstractGraph<Vertex> source)
+    {
+        this.source = source;
+        int n = source.getNumberOfVertices();
+        setNumberOfVertices(n);
+        numberOfIsolated = n;
+        vertexUnionFind = new IntUnionFind(n);
+        ensureScratchCapacity(n);
+        dense = source instanceof DenseGraph ? (DenseGraph) source : null;
+        endpoints = dense != null ? new long[(n + 63) >>> 6] : null;
+        resetEndpoints();
     }
 
 
     /**
-     * Resets the union find of the tree.
+     * Removes every edge so the tree can be grown again, the allocated adjacency arrays, union find, scratch buffers
+     * and path forest are kept. The tree is in the same state as a new tree for its graph, except for its random source.
+     */
+    void clear()
+    {
+        clearEdges();
+        root = -1;
+        numberOfLeaves = 0;
+        numberOfIsolated = getNumberOfVertices();
+        pathCoverIsCurrent = false;
+        resetUnionFind();
+        resetEndpoints();
+        for (int i = 0; i < getNumberOfVertices(); i++)
+            vertexOrder[i] = i;
+    }
+
+
+    /**
+     * @return the graph the tree spans, or null if the tree was built on its own
+     */
+    AbstractGraph<Vertex> getSource()
+    {
+        return source;
+    }
+
+
+    /**
+     * Resets the union find of the tree, every vertex is put in its own set. Runs in constant time.
      */
     public void resetUnionFind()
     {
-        ArrayList<Vertex> vertices = new ArrayList<>(getVertices());
-        for (Vertex v : vertices)
-            vertexUnionFind.makeSet(v);
+        vertexUnionFind.reset();
     }
 
 
@@ -44,9 +140,11 @@ public class Tree<Vertex> extends Graph<Vertex> implements TreeInterface<Vertex>
      */
     public void generateUnionFind()
     {
-        for (Vertex v : getVertices()) {
-            for (Vertex w : getNeighborsOf(v)) {
-                vertexUnionFind.union(v, w);
+        int n = getNumberOfVertices();
+        for (int i = 0; i < n; i++) {
+            for (int k = 0; k < degreeAt(i); k++) {
+                int j = neighborIndexAt(i, k);
+                if (i < j) vertexUnionFind.union(i, j);
             }
         }
     }
@@ -59,7 +157,18 @@ public class Tree<Vertex> extends Graph<Vertex> implements TreeInterface<Vertex>
      */
     public void setRoot(Vertex root)
     {
-        if (canHaveAsRoot(root)) this.root = root;
+        if (canHaveAsRoot(root)) this.root = indexOf(root);
+    }
+
+
+    /**
+     * Sets the root of the tree by its index.
+     *
+     * @param root the index of the root
+     */
+    void setRootIndex(int root)
+    {
+        if (root >= 0 && root < getNumberOfVertices()) this.root = root;
     }
 
 
@@ -68,10 +177,9 @@ public class Tree<Vertex> extends Graph<Vertex> implements TreeInterface<Vertex>
      *
      * @return the root or the first vertex if no root is se
      */
-    @SuppressWarnings("unchecked")
     public Vertex getRoot()
     {
-        return root != null ? root : (Vertex) getVertices().toArray()[0];
+        return vertexAt(root >= 0 ? root : 0);
     }
 
 
@@ -83,7 +191,79 @@ public class Tree<Vertex> extends Graph<Vertex> implements TreeInterface<Vertex>
      */
     public Boolean canHaveAsRoot(Vertex root)
     {
-        return getVerticesSet().contains(root);
+        return indexOf(root) >= 0;
+    }
+
+
+    /**
+     * Returns the index of a vertex, a tree built for a graph uses the indices of that graph.
+     *
+     * @param vertex the vertex
+     * @return the index of the vertex or -1 if it is not part of the tree
+     */
+    @Override
+    public int indexOf(Vertex vertex)
+    {
+        return source != null ? source.indexOf(vertex) : super.indexOf(vertex);
+    }
+
+
+    /**
+     * Returns the vertex with a given index.
+     *
+     * @param index the index of the vertex
+     */
+    @Override
+    public Vertex vertexAt(int index)
+    {
+        return source != null ? source.vertexAt(index) : super.vertexAt(index);
+    }
+
+
+    /**
+     * @return a collection of integers representing the vertices of the tree.
+     */
+    @Override
+    public Collection<Vertex> getVertices()
+    {
+        return source != null ? source.getVertices() : super.getVertices();
+    }
+
+
+    /**
+     * @return a collection of integers representing the vertices of the tree
+     */
+    @Override
+    public Collection<Vertex> getVerticesSet()
+    {
+        return source != null ? source.getVertices() : super.getVerticesSet();
+    }
+
+
+    /**
+     * Adds a vertex to the tree if it is not present yet, a new vertex is isolated.
+     *
+     * @param vertex the vertex to add
+     * @return the index of the vertex
+     * @throws IllegalArgumentException if the tree is built for a graph that does not contain the vertex
+     */
+    @Override
+    protected int addVertex(Vertex vertex) throws IllegalArgumentException
+    {
+        if (source != null) {
+            int index = source.indexOf(vertex);
+            if (index < 0)
+                throw new IllegalArgumentException("Vertex is not part of the graph of this tree!");
+            return index;
+        }
+
+        int n = getNumberOfVertices();
+        int index = super.addVertex(vertex);
+        if (getNumberOfVertices() > n) {
+            numberOfIsolated++;
+            pathCoverIsCurrent = false;
+        }
+        return index;
     }
 
 
@@ -100,23 +280,130 @@ public class Tree<Vertex> extends Graph<Vertex> implements TreeInterface<Vertex>
         if (!canHaveAsEdge(start, end))
             throw new IllegalArgumentException("Edge creates a loop!");
 
-        vertexUnionFind.union(start, end);
-        super.addEdge(start, end);
+        checkedAddEdge(addVertex(start), addVertex(end));
+    }
+
+
+    /**
+     * Adds an edge between the vertices with the given indices.
+     *
+     * @param i the index of the first vertex
+     * @param j the index of the second vertex
+     * @throws IllegalArgumentException if the edge creates a loop
+     */
+    void addEdgeAt(int i, int j) throws IllegalArgumentException
+    {
+        if (!canHaveAsEdgeAt(i, j))
+            throw new IllegalArgumentException("Edge creates a loop!");
+
+        checkedAddEdge(i, j);
     }
 
 
     /**
      * Adds an edge to the graph without checking if it creates a loop.
      *
+     * @param i the index of the first vertex
+     * @param j the index of the second vertex
+     * @implNote Only use this method if you are sure that the edge does not create a loop!
+     * @see Tree#canHaveAsEdgeAt(int, int)
+     */
+    private void checkedAddEdge(int i, int j)
+    {
+        int startDegree = degreeAt(i);
+        int endDegree = degreeAt(j);
+
+        link(i, j);
+        setNumberOfEdges(getNumberOfEdges() + 1);
+        pathCoverIsCurrent = false;
+        vertexUnionFind.union(i, j);
+
+        updateDegreeCounters(startDegree, startDegree + 1);
+        updateDegreeCounters(endDegree, endDegree + 1);
+        if (endpoints != null) {
+            updateEndpoint(i);
+            updateEndpoint(j);
+        }
+    }
+
+
+    /**
+     * Removes an edge from the tree.
+     *
      * @param start the starting point of the edge
      * @param end   the end point of the edge
-     * @implNote Only use this method if you are sure that the edge does not create a loop!
-     * @see Tree#canHaveAsEdge(Object, Object)
      */
-    private void checkedAddEdge(Vertex start, Vertex end)
+    @Override
+    public void removeEdge(Vertex start, Vertex end)
+    {
+        removeEdgeAt(indexOf(start), indexOf(end));
+    }
+
+
+    /**
+     * Removes the edge between the vertices with the given indices.
+     *
+     * @param i the index of the first vertex
+     * @param j the index of the second vertex
+     */
+    private void removeEdgeAt(int i, int j)
+    {
+        int startDegree = degreeAt(i);
+        int endDegree = degreeAt(j);
+
+        unlink(i, j);
+        setNumberOfEdges(getNumberOfEdges() - 1);
+        pathCoverIsCurrent = false;
+
+        updateDegreeCounters(startDegree, degreeAt(i));
+        updateDegreeCounters(endDegree, degreeAt(j));
+        if (endpoints != null) {
+            updateEndpoint(i);
+            updateEndpoint(j);
+        }
+    }
+
+
+    /**
+     * Keeps the number of leaves and isolated vertices up to date when the degree of a vertex changes.
+     *
+     * @param oldDegree the degree before the change
+     * @param newDegree the degree after the change
+     */
+    private void updateDegreeCounters(int oldDegree, int newDegree)
+    {
+        if (oldDegree == 0) numberOfIsolated--;
+        if (oldDegree == 1) numberOfLeaves--;
+        if (newDegree == 0) numberOfIsolated++;
+        if (newDegree == 1) numberOfLeaves++;
+    }
+
+
+    /**
+     * Puts every vertex in the bitset of the vertices with degree 0 or 1, the tree has to be empty.
+     */
+    private void resetEndpoints()
     {
-        vertexUnionFind.union(start, end);
-        super.addEdge(start, end);
+        if (endpoints == null) return;
+
+        int n = getNumberOfVertices();
+        Arrays.fill(endpoints, -1L);
+        if ((n & 63) != 0) endpoints[endpoints.length - 1] = (1L << n) - 1;
+    }
+
+
+    /**
+     * Keeps the bit of a vertex in the bitset of the vertices with degree 0 or 1 up to date.
+     *
+     * @param i the index of the vertex
+     */
+    private void updateEndpoint(int i)
+    {
+        if (degreeAt(i) <= 1) {
+            endpoints[i >>> 6] |= 1L << i;
+        } else {
+            endpoints[i >>> 6] &= ~(1L << i);
+        }
     }
 
 
@@ -128,105 +415,293 @@ public class Tree<Vertex> extends Graph<Vertex> implements TreeInterface<Vertex>
      */
     public Boolean canHaveAsEdge(Vertex start, Vertex end)
     {
-        if (vertexUnionFind.find(start) == null)
-            vertexUnionFind.makeSet(start);
+        int i = indexOf(start);
+        int j = indexOf(end);
+
+        // a vertex that is not part of the tree yet is always in a set of its own
+        if (i < 0 || j < 0) return !start.equals(end);
+
+        return canHaveAsEdgeAt(i, j);
+    }
 
-        if (vertexUnionFind.find(end) == null)
-            vertexUnionFind.makeSet(end);
 
-        return vertexUnionFind.find(start) != vertexUnionFind.find(end);
+    /**
+     * Returns whether the edge between the vertices with the given indices can be added to the graph.
+     *
+     * @param i the index of the first vertex
+     * @param j the index of the second vertex
+     */
+    public boolean canHaveAsEdgeAt(int i, int j)
+    {
+        return vertexUnionFind.find(i) != vertexUnionFind.find(j);
     }
 
 
     /**
-     * Returns the minimum path partition number of this tree. Can be computed in linear time!
+     * Returns the minimum path partition number of this tree. Can be computed in linear time! The tree is not
+     * changed, see {@link Tree#applyPathCover()}.
      */
     @Override
     public int getMinimumPathPartitionNumber()
     {
-        pathCover(getRoot());
-        return calculateNumberOfPath();
+        long start = Metrics.start();
+        pathCover(root >= 0 ? root : 0);
+        Metrics.record(Metrics.Timer.PATH_COVER, start);
+        return getNumberOfVertices() - numberOfCoverEdges;
     }
 
 
     /**
-     * Creates the path cover of a tree
+     * Returns the edges of a minimum path cover of this tree. Every edge of the tree connects a vertex with its parent
+     * in the traversal from the root, bit i of the mask is set if the edge between the vertex with index i and its
+     * parent is part of the path cover.
      *
-     * @param v the vertex to start the path cover from, usually root
-     * @see Tree#process(Vertex)
+     * @return the mask of the selected edges, a copy
+     * @see Tree#getParentIndex(int)
      */
-    private void pathCover(Vertex v)
+    public long[] getPathCoverEdges()
     {
-        Deque<Vertex> stack = new ArrayDeque<>();
-        Deque<Vertex> processingOrder = new ArrayDeque<>();
-        Set<Vertex> visited = new HashSet<>();
+        ensurePathCover();
+        return Arrays.copyOf(selected, (getNumberOfVertices() + 63) >>> 6);
+    }
 
-        stack.push(v);
 
-        while (!stack.isEmpty()) {
-            Vertex current = stack.pop();
+    /**
+     * Returns the parent of a vertex in the traversal of the last path cover.
+     *
+     * @param i the index of the vertex
+     * @return the index of the parent, or -1 if the vertex is the first vertex of its component
+     * @see Tree#getPathCoverEdges()
+     */
+    public int getParentIndex(int i)
+    {
+        ensurePathCover();
+        return parent[i];
+    }
 
-            if (!visited.contains(current)) {
-                visited.add(current);
 
-                Collection<Vertex> neighbors = getNeighborsOf(current);
-                for (Vertex neighbor : neighbors) {
-                    if (!neighbor.equals(current) && !visited.contains(neighbor)) {
-                        stack.push(neighbor);
-                    }
-                }
-                processingOrder.push(current);
+    /**
+     * Removes every edge that is not part of the minimum path cover, the tree becomes a linear forest.
+     */
+    public void applyPathCover()
+    {
+        ensurePathCover();
+
+        int n = getNumberOfVertices();
+        for (int i = 0; i < n; i++) {
+            if (parent[i] >= 0 && !isSelected(i)) {
+                removeEdgeAt(i, parent[i]);
+                parent[i] = -1;
             }
         }
+        // only unselected edges were removed, so the path cover is still the same
+        pathCoverIsCurrent = true;
+    }
+
 
-        while (!processingOrder.isEmpty()) {
-            Vertex vertex = processingOrder.pop();
-            process(vertex);
+    /**
+     * Computes the path cover if an edge was added or removed since the last one.
+     */
+    private void ensurePathCover()
+    {
+        if (!pathCoverIsCurrent) pathCover(root >= 0 ? root : 0);
+    }
+
+
+    /**
+     * Computes a minimum path cover of a tree bottom-up, children before their parents. A vertex joins the path of
+     * its parent if both still have a free end, which is optimal: a vertex that keeps an edge to a child loses
+     * nothing, because the child would otherwise end a path of its own. The traversal only uses the preallocated
+     * scratch buffers, vertices that are not reachable from v are covered as well.
+     *
+     * @param v the index of the vertex to start the path cover from, usually root
+     */
+    private void pathCover(int v)
+    {
+        int n = getNumberOfVertices();
+        numberOfCoverEdges = 0;
+        pathCoverIsCurrent = true;
+        if (n == 0) return;
+
+        ensureScratchCapacity(n);
+        int words = (n + 63) >>> 6;
+        Arrays.fill(visited, 0, words, 0L);
+        Arrays.fill(selected, 0, words, 0L);
+        Arrays.fill(pathDegree, 0, n, 0);
+
+        int count = traverse(v, 0);
+        for (int i = 0; i < n; i++) {
+            if (!isVisited(i)) count = traverse(i, count);
+        }
+
+        while (count > 0) {
+            int w = processingOrder[--count];
+            int p = parent[w];
+            if (p >= 0 && pathDegree[w] < 2 && pathDegree[p] < 2) {
+                pathDegree[w]++;
+                pathDegree[p]++;
+                selected[w >>> 6] |= 1L << w;
+                numberOfCoverEdges++;
+            }
+        }
+    }
+
+
+    /**
+     * Visits every vertex reachable from a start vertex depth first, appends it to the processing order and records
+     * its parent. In the processing order every vertex comes before its descendants.
+     *
+     * @param start the index of the start vertex
+     * @param count the number of vertices in the processing order so far
+     * @return the number of vertices in the processing order afterwards
+     */
+    private int traverse(int start, int count)
+    {
+        int size = 0;
+        stack[size++] = start;
+        parent[start] = -1;
+
+        while (size > 0) {
+            int current = stack[--size];
+            if (isVisited(current)) continue;
+
+            visited[current >>> 6] |= 1L << current;
+            for (int k = 0; k < degreeAt(current); k++) {
+                int neighbor = neighborIndexAt(current, k);
+                if (!isVisited(neighbor)) {
+                    parent[neighbor] = current;
+                    stack[size++] = neighbor;
+                }
+            }
+            processingOrder[count++] = current;
         }
+
+        return count;
+    }
+
+
+    /**
+     * @param i the index of a vertex
+     * @return whether the vertex was visited by the current traversal
+     */
+    private boolean isVisited(int i)
+    {
+        return (visited[i >>> 6] & (1L << i)) != 0;
+    }
+
+
+    /**
+     * @param i the index of a vertex
+     * @return whether the edge between the vertex and its parent is part of the path cover
+     */
+    private boolean isSelected(int i)
+    {
+        return (selected[i >>> 6] & (1L << i)) != 0;
     }
 
 
     /**
-     * Removes all neighbours of v except the first two.
+     * Copies the minimum path cover of the tree. Copying two ints per vertex is cheap enough to do every time the
+     * search improves.
      *
-     * @param v the vertex to remove the neighbours from
+     * @param neighbours receives for the vertex with index i its neighbours at 2i and 2i + 1, or -1
+     * @see PathCover#fromNeighbours(int[], AbstractGraph)
      */
-    @SuppressWarnings("unchecked")
-    private void process(Vertex v)
+    void copyPathCoverTo(int[] neighbours)
     {
-        if (getDegree(v) < 3) {
-            return;
+        ensurePathCover();
+
+        int n = getNumberOfVertices();
+        Arrays.fill(neighbours, 0, 2 * n, -1);
+        for (int i = 0; i < n; i++) {
+            if (parent[i] < 0 || !isSelected(i)) continue;
+
+            int p = parent[i];
+            neighbours[2 * i + (neighbours[2 * i] < 0 ? 0 : 1)] = p;
+            neighbours[2 * p + (neighbours[2 * p] < 0 ? 0 : 1)] = i;
         }
+    }
 
-        Collection<Vertex> copy = new ArrayList<>(getNeighborsOf(v));
-        Vertex x, y;
-        x = (Vertex) getNeighborsOf(v).toArray()[0];
-        y = (Vertex) getNeighborsOf(v).toArray()[1];
 
-        for (Vertex z : copy) {
-            if (z == x || z == y) continue;
-            removeEdge(v, z);
+    /**
+     * Returns a scratch buffer of a spanning tree construction with one zero per vertex. The buffers are kept by
+     * {@link #clear()}, so growing a reused tree allocates nothing.
+     *
+     * @param k the number of the buffer, smaller than {@value #CONSTRUCTION_BUFFERS}
+     * @return the buffer, its first n positions are zero
+     */
+    int[] constructionBuffer(int k)
+    {
+        int n = getNumberOfVertices();
+        if (constructionBuffers[k] == null || constructionBuffers[k].length < n) {
+            constructionBuffers[k] = new int[n];
+        } else {
+            Arrays.fill(constructionBuffers[k], 0, n, 0);
         }
+        return constructionBuffers[k];
     }
 
 
     /**
-     * Calculates the number of paths in the tree, only works correctly after {@link Tree#pathCover(Vertex)}.
+     * Returns the buffer a spanning tree construction marks the vertices it reached in, kept like the other
+     * construction buffers.
      *
-     * @return the amount of paths in the tree
+     * @return the buffer, its first n positions are false
      */
-    private int calculateNumberOfPath()
+    boolean[] reachedBuffer()
     {
-        int oneDegree = 0;
-        int zeroDegree = 0;
+        int n = getNumberOfVertices();
+        if (reached.length < n) {
+            reached = new boolean[n];
+        } else {
+            Arrays.fill(reached, 0, n, false);
+        }
+        return reached;
+    }
+
 
-        for (Vertex v : getVertices()) {
-            if (getDegree(v) == 1) oneDegree++;
-            if (getDegree(v) == 0) zeroDegree++;
+    /**
+     * Returns a path forest of the minimum path cover of the tree. The forest and its storage are kept by the tree, so
+     * every restart that reuses the tree searches in the same forest, a forest of another graph is replaced.
+     *
+     * @param graph the graph the paths belong to
+     * @return the forest, it is only valid until the next call
+     */
+    PathForest getPathForest(AbstractGraph<?> graph)
+    {
+        if (forest == null || forest.getGraph() != graph) {
+            forestNeighbours = new int[2 * getNumberOfVertices()];
+            copyPathCoverTo(forestNeighbours);
+            forest = new PathForest(graph, forestNeighbours);
+        } else {
+            copyPathCoverTo(forestNeighbours);
+            forest.reset(forestNeighbours);
         }
+        return forest;
+    }
+
 
-        int count = oneDegree % 2 == 0 ? oneDegree / 2 : (oneDegree + 1) / 2;
-        return count + zeroDegree;
+    /**
+     * Makes sure the scratch buffers can hold the given number of vertices. New positions in the vertex order are
+     * filled with their own index.
+     *
+     * @param n the number of vertices
+     */
+    private void ensureScratchCapacity(int n)
+    {
+        if (processingOrder.length >= n) return;
+
+        stack = new int[n];
+        processingOrder = new int[n];
+        parent = new int[n];
+        pathDegree = new int[n];
+        visited = new long[(n + 63) >>> 6];
+        selected = new long[(n + 63) >>> 6];
+
+        int old = vertexOrder.length;
+        vertexOrder = Arrays.copyOf(vertexOrder, n);
+        for (int i = old; i < n; i++)
+            vertexOrder[i] = i;
     }
 
 
@@ -234,18 +709,63 @@ public class Tree<Vertex> extends Graph<Vertex> implements TreeInterface<Vertex>
      * Applies the move operator to the tree. This method will reset and regenerate the union find.
      *
      * @param graph the graph to apply the move operator with
-     * @see Tree#connectPaths(Graph)
-     * @see Tree#restoreTree(Graph)
+     * @see Tree#connectPaths(GraphInterface)
+     * @see Tree#restoreTree(GraphInterface)
+     */
+    public void perturb(GraphInterface<Vertex> graph)
+    {
+        perturb(graph, getRandom());
+    }
+
+
+    /**
+     * Applies the move operator to the minimum path cover of the tree. This method will reset and regenerate the
+     * union find.
+     *
+     * @param graph  the graph to apply the move operator with
+     * @param random the random source used to shuffle the vertices
+     * @see Tree#applyPathCover()
+     * @see Tree#connectPaths(GraphInterface)
+     * @see Tree#restoreTree(GraphInterface)
      */
-    public void perturb(Graph<Vertex> graph)
+    public void perturb(GraphInterface<Vertex> graph, SplittableRandom random)
     {
+        Metrics.increment(Metrics.Counter.PERTURBATIONS);
+        applyPathCover();
+
+        long start = Metrics.start();
         resetUnionFind();
         generateUnionFind();
+        Metrics.record(Metrics.Timer.UNION_FIND, start);
 
-        shuffleVertices();
+        shuffleVertices(random);
 
+        start = Metrics.start();
         connectPaths(graph);
+        Metrics.record(Metrics.Timer.CONNECT_PATHS, start);
+
+        start = Metrics.start();
         restoreTree(graph);
+        Metrics.record(Metrics.Timer.RESTORE_TREE, start);
+    }
+
+
+    /**
+     * Shuffles the order in which the move operator visits the vertices.
+     *
+     * @param random the random source of the shuffle
+     */
+    public void shuffleVertices(SplittableRandom random)
+    {
+        int n = getNumberOfVertices();
+        ensureScratchCapacity(n);
+
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = vertexOrder[i];
+            vertexOrder[i] = vertexOrder[j];
+            vertexOrder[j] = temp;
+        }
     }
 
 
@@ -253,20 +773,44 @@ public class Tree<Vertex> extends Graph<Vertex> implements TreeInterface<Vertex>
      * Connects path partitions of the tree by adding edges from the graph.
      *
      * @param graph the graph to connect the paths with
-     * @see Tree#pathCover(Object)
+     * @see Tree#pathCover(int)
      */
-    public void connectPaths(Graph<Vertex> graph)
+    public void connectPaths(GraphInterface<Vertex> graph)
     {
-        for (Vertex v : getVertices()) {
-            if (getDegree(v) > 1) continue;
+        int n = getNumberOfVertices();
+        ensureScratchCapacity(n);
 
-            for (Vertex w : graph.getNeighborsOf(v)) {
-                if (getDegree(w) > 1) continue;
+        for (int k = 0; k < n; k++) {
+            int v = vertexOrder[k];
+            if (degreeAt(v) > 1) continue;
 
-                if (canHaveAsEdge(v, w)) {
+            if (graph == source && dense != null) {
+                // the first neighbour with degree 0 or 1, as below, but 64 neighbours at a time
+                int w = dense.firstNeighborIn(v, endpoints);
+                if (w >= 0 && canHaveAsEdgeAt(v, w)) {
                     checkedAddEdge(v, w);
                 }
-                break;
+            } else if (graph == source) {
+                for (int l = 0; l < source.degreeAt(v); l++) {
+                    int w = source.neighborIndexAt(v, l);
+                    if (degreeAt(w) > 1) continue;
+
+                    if (canHaveAsEdgeAt(v, w)) {
+                        checkedAddEdge(v, w);
+                    }
+                    break;
+                }
+            } else {
+                Vertex x = vertexAt(v);
+                for (int l = 0, degree = graph.getDegree(x); l < degree; l++) {
+                    int w = indexOf(graph.neighborAt(x, l));
+                    if (w < 0 || degreeAt(w) > 1) continue;
+
+                    if (canHaveAsEdgeAt(v, w)) {
+                        checkedAddEdge(v, w);
+                    }
+                    break;
+                }
             }
         }
     }
@@ -278,26 +822,28 @@ public class Tree<Vertex> extends Graph<Vertex> implements TreeInterface<Vertex>
      * @param graph the graph to apply the rotation move operator with
      * @deprecated This method is not used anymore because it is faulty.
      */
-    @SuppressWarnings({"unchecked", "unused"})
-    public void rotationMoves(Graph<Vertex> graph)
+    @SuppressWarnings("unused")
+    public void rotationMoves(GraphInterface<Vertex> graph)
     {
-        for (Vertex v : getVertices()) {
-            if (getDegree(v) != 2) continue;
+        for (int i = 0; i < getNumberOfVertices(); i++) {
+            if (degreeAt(i) != 2) continue;
 
-            for (Vertex w : graph.getNeighborsOf(v)) {
+            Vertex v = vertexAt(i);
+            for (int k = 0, degree = graph.getDegree(v); k < degree; k++) {
+                Vertex w = graph.neighborAt(v, k);
                 if (getDegree(w) != 1) continue;
                 if (canHaveAsEdge(v, w)) continue;
 
-                Vertex x = (Vertex) getNeighborsOf(v).toArray()[0];
-                Vertex y = (Vertex) getNeighborsOf(v).toArray()[1];
+                int x = neighborIndexAt(i, 0);
+                int y = neighborIndexAt(i, 1);
 
-                if (getDegree(x) != 1){
-                    removeEdge(v, x);
-                    checkedAddEdge(v, w);
+                if (degreeAt(x) != 1){
+                    removeEdgeAt(i, x);
+                    checkedAddEdge(i, indexOf(w));
                     break;
-                } else if(getDegree(y) != 1){
-                    removeEdge(v, y);
-                    checkedAddEdge(v, w);
+                } else if(degreeAt(y) != 1){
+                    removeEdgeAt(i, y);
+                    checkedAddEdge(i, indexOf(w));
                     break;
                 }
             }
@@ -310,18 +856,36 @@ public class Tree<Vertex> extends Graph<Vertex> implements TreeInterface<Vertex>
      *
      * @param graph the graph to restore the tree from
      */
-    public void restoreTree(Graph<Vertex> graph)
+    public void restoreTree(GraphInterface<Vertex> graph)
     {
         int n = getNumberOfVertices() - 1;
+        ensureScratchCapacity(n + 1);
 
-        for (Vertex v : getVertices()) {
-            for (Vertex w : graph.getNeighborsOf(v)) {
-                if (canHaveAsEdge(v, w)) {
-                    checkedAddEdge(v, w);
+        for (int k = 0; k <= n; k++) {
+            int v = vertexOrder[k];
+
+            if (graph == source) {
+                for (int l = 0; l < source.degreeAt(v); l++) {
+                    int w = source.neighborIndexAt(v, l);
+                    if (canHaveAsEdgeAt(v, w)) {
+                        checkedAddEdge(v, w);
+                    }
+
+                    if (getNumberOfEdges() >= n) {
+                        return;
+                    }
                 }
+            } else {
+                Vertex x = vertexAt(v);
+                for (int l = 0, degree = graph.getDegree(x); l < degree; l++) {
+                    int w = indexOf(graph.neighborAt(x, l));
+                    if (w >= 0 && canHaveAsEdgeAt(v, w)) {
+                        checkedAddEdge(v, w);
+                    }
 
-                if (getNumberOfEdges() >= n) {
-                    return;
+                    if (getNumberOfEdges() >= n) {
+                        return;
+                    }
                 }
             }
         }
@@ -335,10 +899,17 @@ public class Tree<Vertex> extends Graph<Vertex> implements TreeInterface<Vertex>
      */
     public int getNumberOfIsolated()
     {
-        int count = 0;
-        for (Vertex v : getVertices()) {
-            if (getDegree(v) == 0) count++;
-        }
-        return count;
+        return numberOfIsolated;
+    }
+
+
+    /**
+     * Returns the number of leaves in the tree. Vertices with degree 1.
+     *
+     * @return the number of leaves
+     */
+    public int getNumberOfLeaves()
+    {
+        return numberOfLeaves;
     }
 }
@@ -6,7 +6,7 @@ import java.util.HashMap;
  *
  * @param <Vertex> the type of the vertices
  * @author Seppe Degryse
- * @version 1.1
+ * @version 1.2
  */
 public class UnionFind<Vertex> {
 
@@ -53,18 +53,29 @@ public class UnionFind<Vertex> {
 
 
     /**
-     * Finds the parent of the set of a vertex.
+     * Finds the parent of the set of a vertex. The path is compressed iteratively, so long chains can not overflow
+     * the stack.
      *
      * @param vertex the vertex
-     * @return the parent of the set of the vertex
+     * @return the parent of the set of the vertex or null if the vertex is not part of the disjoint set
      */
     public Vertex find(Vertex vertex)
     {
-        if (parent.get(vertex) != vertex) {
-            parent.put(vertex, find(parent.get(vertex)));
-            return parent.get(vertex);
+        Vertex root = vertex;
+        Vertex next = parent.get(root);
+        if (next == null) return null;
+
+        while (!next.equals(root)) {
+            root = next;
+            next = parent.get(root);
+        }
+
+        while (!vertex.equals(root)) {
+            next = parent.get(vertex);
+            parent.put(vertex, root);
+            vertex = next;
         }
-        return vertex;
+        return root;
     }
 
 
@@ -79,7 +90,7 @@ public class UnionFind<Vertex> {
         v = find(v);
         u = find(u);
 
-        if (v == u) return;
+        if (v.equals(u)) return;
 
         if (size.get(v) < size.get(u)) {
             Vertex temp = v;
@@ -1,9 +1,10 @@
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Scanner;
 
 
@@ -13,17 +14,26 @@ public class Benchmarks {
     private static final String data = "./Benchmarks/global_optima.csv";
     private static final String outputDir = "./Benchmarks/results/";
     private static final ArrayList<String> graphs = new ArrayList<>();
-    private static final ArrayList<Integer> optimalSolutions = new ArrayList<>();
+    private static final Map<String, Integer> optimalSolutions = new HashMap<>();
     private static File outputFile;
-    private static final ArrayList<String> results = new ArrayList<>();
 
 
-    public static void main(String[] args)
+    // optionally the csv file of a run to resume, the number of graphs solved at the same time, the strategy, the
+    // construction of the initial spanning trees and the cooling schedule
+    public static void main(String[] args) throws IOException
     {
         readData();
-        createFile();
-        runBenchmarks();
-        saveToCsv();
+        if (args.length > 0) {
+            outputFile = new File(args[0]);
+        } else {
+            createFile();
+        }
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        Strategy strategy = args.length > 2 ? Strategy.of(args[2]) : Strategy.ANNEALING;
+        SpanningTree spanningTree = args.length > 3 ? SpanningTree.of(args[3]) : SpanningTree.WARNSDORFF;
+        CoolingSchedule schedule = CoolingSchedule.of(args.length > 4 ? args[4] : "geometric");
+        runBenchmarks(threads, strategy, spanningTree, schedule);
+        Metrics.dump();
     }
 
 
@@ -34,7 +44,7 @@ public class Benchmarks {
                 String line = scanner.nextLine();
                 String[] values = line.split(",");
                 graphs.add(values[0]);
-                optimalSolutions.add(Integer.parseInt(values[1]));
+                optimalSolutions.put(values[0], Integer.parseInt(values[1]));
             }
         } catch (Exception e) {
             System.out.println("Error reading file");
@@ -49,30 +59,30 @@ public class Benchmarks {
     }
 
 
-    public static void runBenchmarks()
+    // every result is appended to the output file as soon as it is known
+    @SuppressWarnings("unchecked")
+    public static void runBenchmarks(int threads, Strategy strategy, SpanningTree spanningTree,
+                                     CoolingSchedule schedule) throws IOException
     {
-        int size = graphs.size();
         int n = 30;
-        for (int i = 0; i < size; i++) {
-            Graph<Integer> graph = (Graph<Integer>) Constructor.createGraphFromFile(path + graphs.get(i));
-            int optimalSolution = optimalSolutions.get(i);
-
-
+        BatchSolver solver = new BatchSolver(new File(path), outputFile, threads, true);
+        solver.solve(graphs, (name, graph) -> {
+            ((AbstractGraph<Integer>) graph).setSpanningTree(spanningTree);
             long startTime = System.nanoTime();
             int localSolution = graph.applyLocalSearchAlgorithm(n);
             long endTime = System.nanoTime();
             long localDuration = (endTime - startTime) / 1000000;
 
-            graph = (Graph<Integer>) Constructor.createGraphFromFile(path + graphs.get(i));
+            ((AbstractGraph<Integer>) graph).setStrategy(strategy);
+            ((AbstractGraph<Integer>) graph).setCoolingSchedule(schedule);
             startTime = System.nanoTime();
             int metaSolution = graph.applyMetaheuristic(n);
 
             endTime = System.nanoTime();
             long metaDuration = (endTime - startTime) / 1000000;
 
-            saveResult(graphs.get(i), optimalSolution, localSolution, metaSolution, localDuration, metaDuration);
-            System.err.println(i + 1 + " /" + size + " done in " + (metaDuration + localDuration) + "ms");
-        }
+            return formatResult(optimalSolutions.get(name), localSolution, metaSolution, localDuration, metaDuration);
+        });
     }
 
 
@@ -89,25 +99,8 @@ public class Benchmarks {
     }
 
 
-    public static void saveResult(String graph, int optimal, int localSolution, int metaSolution, long localTime, long metaTime)
-    {
-        String line = graph + "," + optimal + "," + localSolution + "," + metaSolution + "," + localTime + "," + metaTime;
-        results.add(line);
-    }
-
-
-    public static void saveToCsv()
+    public static String formatResult(int optimal, int localSolution, int metaSolution, long localTime, long metaTime)
     {
-        for (String line : results) {
-            try {
-                FileWriter fw = new FileWriter(outputFile, true);
-                BufferedWriter bw = new BufferedWriter(fw);
-                bw.write(line);
-                bw.newLine();
-                bw.close();
-            } catch (Exception e) {
-                System.out.println("Error writing to file");
-            }
-        }
+        return optimal + "," + localSolution + "," + metaSolution + "," + localTime + "," + metaTime;
     }
 }
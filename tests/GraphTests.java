@@ -1,5 +1,17 @@
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 
@@ -37,6 +49,116 @@ public class GraphTests {
     }
 
 
+    @Test
+    public void testCsrGraph()
+    {
+        int[] sources = {10, 10, 10, 10, 1, 2, 3, 5, 5};
+        int[] destinations = {1, 2, 3, 4, 4, 3, 4, 3, 4};
+        CsrGraph graph = CsrGraph.fromEdges(sources, destinations, sources.length);
+
+        assertEquals(9, graph.getNumberOfEdges());
+        assertEquals(6, graph.getNumberOfVertices());
+        assertEquals(0, graph.indexOf(10));
+        assertEquals(-1, graph.indexOf(0));
+        assertEquals(10, graph.labelOf(0));
+        assertEquals(4, graph.getDegree(10));
+        assertEquals(0, graph.getDegree(7));
+        assertTrue(graph.areNeighbors(10, 1));
+        assertTrue(graph.areNeighbors(4, 10));
+        assertTrue(graph.areNeighbors(2, 3));
+        assertTrue(graph.areNeighbors(5, 4));
+        assertFalse(graph.areNeighbors(10, 5));
+        assertFalse(graph.areNeighbors(1, 2));
+        assertFalse(graph.areNeighbors(1, 7));
+        assertTrue(graph.getNeighborsOf(3).containsAll(Arrays.asList(10, 2, 4, 5)));
+        assertEquals(4, graph.getNeighborsOf(3).size());
+
+        // repeated edges are stored once and a self-loop only adds its vertex
+        CsrGraph repeated = CsrGraph.fromEdges(new int[]{1, 2, 1, 3, 4}, new int[]{2, 1, 2, 3, 1}, 5);
+        Graph<Integer> sets = new Graph<>();
+        for (int[] edge : new int[][]{{1, 2}, {2, 1}, {1, 2}, {3, 3}, {4, 1}})
+            sets.addEdge(edge[0], edge[1]);
+        assertEquals(5, repeated.getNumberOfEdges());
+        assertEquals(4, repeated.getNumberOfVertices());
+        assertEquals(2, repeated.getDegree(1));
+        assertEquals(0, repeated.getDegree(3));
+        assertFalse(repeated.areNeighbors(3, 3));
+        assertArrayEquals(new int[]{0, 2, 3, 3, 4}, repeated.getOffsets());
+        for (Integer v : sets.getVertices()) {
+            if (v != 3) assertEquals(new HashSet<>(sets.getNeighborsOf(v)), new HashSet<>(repeated.getNeighborsOf(v)));
+        }
+    }
+
+
+    @Test
+    public void testIndexAccessors()
+    {
+        Graph<Integer> graph = createTestGraph();
+        CsrGraph csr = CsrGraph.fromEdges(new int[]{10, 10, 1}, new int[]{1, 2, 2}, 3);
+        for (AbstractGraph<Integer> g : Arrays.<AbstractGraph<Integer>>asList(graph, csr)) {
+            for (int i = 0; i < g.getNumberOfVertices(); i++) {
+                Integer v = g.vertexAt(i);
+                List<Integer> neighbours = new ArrayList<>();
+                for (int k = 0; k < g.getDegree(v); k++)
+                    neighbours.add(g.neighborAt(v, k));
+                assertEquals(new ArrayList<>(g.getNeighborsOf(v)), neighbours);
+            }
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> graph.neighborAt(1, 3));
+        assertThrows(IndexOutOfBoundsException.class, () -> csr.neighborAt(7, 0));
+
+        // a tree perturbed with another instance of its graph walks that graph through the accessors
+        Graph<Integer> copy = createTestGraph();
+        Tree<Integer> tree = graph.getInitialSpanningTree(new SplittableRandom(2));
+        for (int i = 0; i < 50; i++) {
+            tree.perturb(copy, new SplittableRandom(i));
+            assertEquals(19, tree.getNumberOfEdges());
+            for (Integer v : tree.getVertices()) {
+                for (Integer u : tree.getNeighborsOf(v))
+                    assertTrue(copy.areNeighbors(v, u));
+            }
+        }
+    }
+
+
+    @Test
+    public void testDenseGraph()
+    {
+        GraphInterface<Integer> graph = Constructor.createGraphFromFile("./Benchmarks/testingConnected/er_8_6.in", false);
+        assertTrue(graph instanceof DenseGraph);
+        assertFalse(createTestGraphStarRandomLeaves() instanceof DenseGraph);
+
+        DenseGraph dense = (DenseGraph) graph;
+        CsrGraph sparse = new CsrGraph(dense);
+        int n = dense.getNumberOfVertices();
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++)
+                assertEquals(sparse.areNeighborsAt(i, j), dense.areNeighborsAt(i, j));
+        }
+
+        long[] set = new long[(n + 63) >>> 6];
+        int last = sparse.neighborIndexAt(7, sparse.degreeAt(7) - 1);
+        set[last >>> 6] |= 1L << last;
+        assertEquals(last, dense.firstNeighborIn(7, set));
+        set[0] |= 1L << 7;
+        assertEquals(last, dense.firstNeighborIn(7, set));
+        assertEquals(-1, dense.firstNeighborIn(7, new long[set.length]));
+
+        // the rows of the matrix pick the same neighbours as the sorted rows of the sparse graph
+        Tree<Integer> first = dense.getInitialSpanningTree(new SplittableRandom(4));
+        Tree<Integer> second = sparse.getInitialSpanningTree(new SplittableRandom(4));
+        SplittableRandom firstRandom = new SplittableRandom(5);
+        SplittableRandom secondRandom = new SplittableRandom(5);
+        for (int i = 0; i < 200; i++) {
+            first.perturb(dense, firstRandom);
+            second.perturb(sparse, secondRandom);
+            assertEquals(second.getMinimumPathPartitionNumber(), first.getMinimumPathPartitionNumber());
+            for (int v = 0; v < n; v++)
+                assertEquals(second.getNeighborsOf(v), first.getNeighborsOf(v));
+        }
+    }
+
+
     @Test
     public void testTreeAddEdge()
     {
@@ -174,15 +296,15 @@ public class GraphTests {
     }
 
 
-    private Graph<Integer> createTestGraph2()
+    private GraphInterface<Integer> createTestGraph2()
     {
-        return (Graph<Integer>) Constructor.createGraphFromFile("./Benchmarks/testingConnected/structured_tree_2_3");
+        return Constructor.createGraphFromFile("./Benchmarks/testingConnected/structured_tree_2_3");
     }
 
 
-    private Graph<Integer> createTestGraphStarRandomLeaves()
+    private GraphInterface<Integer> createTestGraphStarRandomLeaves()
     {
-        return (Graph<Integer>) Constructor.createGraphFromFile("./Benchmarks/testingConnected/star_random_leaves_connected_100.in");
+        return Constructor.createGraphFromFile("./Benchmarks/testingConnected/star_random_leaves_connected_100.in");
     }
 
 
@@ -209,7 +331,113 @@ public class GraphTests {
     public void testPathCover()
     {
         Tree<Integer> tree = createTestTree1();
-        assertEquals(6, tree.getMinimumPathPartitionNumber());
+        assertEquals(5, tree.getMinimumPathPartitionNumber());
+        // the path cover does not change the tree
+        assertEquals(15, tree.getNumberOfEdges());
+        assertEquals(7, tree.getNumberOfLeaves());
+
+        long[] edges = tree.getPathCoverEdges();
+        int selected = 0;
+        for (long word : edges)
+            selected += Long.bitCount(word);
+        assertEquals(16 - 5, selected);
+
+        tree.applyPathCover();
+        assertEquals(16 - 5, tree.getNumberOfEdges());
+        assertEquals(5, tree.getMinimumPathPartitionNumber());
+        for (Integer v : tree.getVertices())
+            assertTrue(tree.getDegree(v) <= 2);
+    }
+
+
+    @Test
+    public void testPathCoverIsMinimum()
+    {
+        SplittableRandom random = new SplittableRandom(11);
+        for (int round = 0; round < 200; round++) {
+            int n = 2 + random.nextInt(11);
+            Tree<Integer> tree = new Tree<>();
+            int[][] edges = new int[n - 1][];
+            for (int v = 1; v < n; v++) {
+                edges[v - 1] = new int[]{random.nextInt(v), v};
+                tree.addEdge(edges[v - 1][0], v);
+            }
+            tree.setRoot(random.nextInt(n));
+
+            // the largest set of edges in which no vertex has a degree above two, by brute force
+            int best = 0;
+            for (int mask = 0; mask < 1 << (n - 1); mask++) {
+                int[] degree = new int[n];
+                boolean valid = true;
+                for (int e = 0; e < n - 1 && valid; e++) {
+                    if ((mask & 1 << e) == 0) continue;
+                    valid = ++degree[edges[e][0]] <= 2 && ++degree[edges[e][1]] <= 2;
+                }
+                if (valid) best = Math.max(best, Integer.bitCount(mask));
+            }
+
+            assertEquals(n - best, tree.getMinimumPathPartitionNumber());
+        }
+    }
+
+
+    @Test
+    public void testDegreeCounters()
+    {
+        Tree<Integer> tree = createTestTree1();
+        assertEquals(7, tree.getNumberOfLeaves());
+        assertEquals(0, tree.getNumberOfIsolated());
+
+        tree.getMinimumPathPartitionNumber();
+        assertCountersMatchDegrees(tree);
+
+        Graph<Integer> graph = createTestGraph();
+        Tree<Integer> spanningTree = (Tree<Integer>) graph.getInitialSpanningTree();
+        for (int i = 0; i < 10; i++) {
+            spanningTree.perturb(graph);
+            spanningTree.getMinimumPathPartitionNumber();
+            assertCountersMatchDegrees(spanningTree);
+        }
+    }
+
+
+    private void assertCountersMatchDegrees(Tree<Integer> tree)
+    {
+        int leaves = 0;
+        int isolated = 0;
+        for (Integer v : tree.getVertices()) {
+            if (tree.getDegree(v) == 1) leaves++;
+            if (tree.getDegree(v) == 0) isolated++;
+        }
+        assertEquals(leaves, tree.getNumberOfLeaves());
+        assertEquals(isolated, tree.getNumberOfIsolated());
+    }
+
+
+    @Test
+    public void testPerturbDoesNotAllocate()
+    {
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        Graph<Integer> graph = createTestGraph();
+        Tree<Integer> tree = (Tree<Integer>) graph.getInitialSpanningTree();
+        SplittableRandom random = new SplittableRandom(1);
+        // warm up, the adjacency rows of the tree grow to their final size
+        for (int i = 0; i < 1000; i++) {
+            tree.perturb(graph, random);
+            tree.getMinimumPathPartitionNumber();
+        }
+
+        long before = bean.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 1000; i++) {
+            tree.perturb(graph, random);
+            tree.getMinimumPathPartitionNumber();
+        }
+        long allocated = bean.getThreadAllocatedBytes(thread) - before;
+
+        assertTrue(allocated < 1024, "allocated " + allocated + " bytes");
     }
 
 
@@ -223,10 +451,44 @@ public class GraphTests {
     }
 
 
+    @Test
+    public void testSpanningTreeConstructions()
+    {
+        Graph<Integer> graph = createTestGraph();
+        // a second component is never reached from the root
+        graph.addEdge(21, 22);
+        for (SpanningTree construction : SpanningTree.values()) {
+            graph.setSpanningTree(construction);
+            for (int seed = 0; seed < 20; seed++) {
+                Tree<Integer> tree = graph.getInitialSpanningTree(new SplittableRandom(seed));
+                int root = graph.indexOf(tree.getRoot());
+                assertEquals(root < 20 ? 19 : 1, tree.getNumberOfEdges());
+                for (Integer v : tree.getVertices()) {
+                    for (Integer u : tree.getNeighborsOf(v))
+                        assertTrue(graph.areNeighbors(v, u));
+                }
+            }
+        }
+
+        // a depth first tree of a grid branches less than the original one, Warnsdorff's rule nearly finds a path
+        Graph<Integer> grid = createTestGridGraph(10);
+        grid.setSpanningTree(SpanningTree.BUSHY);
+        int bushy = grid.getInitialSpanningTree(new SplittableRandom(1)).getMinimumPathPartitionNumber();
+        grid.setSpanningTree(SpanningTree.DEPTH_FIRST);
+        assertTrue(grid.getInitialSpanningTree(new SplittableRandom(1)).getMinimumPathPartitionNumber() < bushy);
+        grid.setSpanningTree(SpanningTree.WARNSDORFF);
+        assertTrue(grid.getInitialSpanningTree(new SplittableRandom(1)).getMinimumPathPartitionNumber() <= 2);
+
+        assertEquals(SpanningTree.MIN_LEAF, SpanningTree.of("min-leaf"));
+        assertThrows(IllegalArgumentException.class, () -> SpanningTree.of("random"));
+        assertThrows(IllegalArgumentException.class, () -> grid.setSpanningTree(null));
+    }
+
+
     @Test
     public void testStructuredTree()
     {
-        Graph<Integer> graph = createTestGraph2();
+        GraphInterface<Integer> graph = createTestGraph2();
         Tree<Integer> tree = (Tree<Integer>) graph.getInitialSpanningTree();
         assertEquals(13, tree.getNumberOfVertices());
         assertEquals(12, tree.getNumberOfEdges());
@@ -238,7 +500,7 @@ public class GraphTests {
     @Test
     public void testStarRandomLeaves15()
     {
-        Graph<Integer> graph = createTestGraphStarRandomLeaves();
+        GraphInterface<Integer> graph = createTestGraphStarRandomLeaves();
         Tree<Integer> tree = (Tree<Integer>) graph.getInitialSpanningTree();
         assertEquals(101, tree.getNumberOfVertices());
         assertEquals(100, tree.getNumberOfEdges());
@@ -258,4 +520,567 @@ public class GraphTests {
 
         graph.applyLocalSearchAlgorithm(100);
     }
+
+
+    @Test
+    public void testConstructorParsesBytes() throws IOException
+    {
+        File file = File.createTempFile("graph", ".in");
+        file.deleteOnExit();
+        Files.write(file.toPath(), "4 3\r\n0 1\r\n1 2\n\n  2   13\n".getBytes(StandardCharsets.US_ASCII));
+
+        GraphInterface<Integer> graph = Constructor.createGraphFromFile(file.getPath(), false);
+        assertEquals(4, graph.getNumberOfVertices());
+        assertEquals(3, graph.getNumberOfEdges());
+        assertTrue(graph.areNeighbors(13, 2));
+
+        Files.write(file.toPath(), "2 1\n0 x\n".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(NumberFormatException.class, () -> Constructor.createGraphFromFile(file.getPath(), false));
+        assertThrows(RuntimeException.class, () -> Constructor.createGraphFromFile(file.getPath() + ".missing"));
+    }
+
+
+    @Test
+    public void testBatchSolverResumes() throws IOException
+    {
+        File directory = Files.createTempDirectory("graphs").toFile();
+        directory.deleteOnExit();
+        File output = new File(directory, "results.csv");
+        Files.write(new File(directory, "path.in").toPath(), "3 2\n0 1\n1 2\n".getBytes(StandardCharsets.US_ASCII));
+        Files.write(new File(directory, "star.in").toPath(), "4 3\n0 1\n0 2\n0 3\n".getBytes(StandardCharsets.US_ASCII));
+        // the line of star.in was cut off by an interrupted run
+        Files.write(output.toPath(), "path.in,0\nstar.in".getBytes(StandardCharsets.US_ASCII));
+        for (File file : new File[]{output, new File(directory, "path.in"), new File(directory, "star.in")}) {
+            file.deleteOnExit();
+            GraphCache.cacheOf(file.getPath()).toFile().deleteOnExit();
+        }
+
+        BatchSolver solver = new BatchSolver(directory, output, 2);
+        List<String> names = Arrays.asList("path.in", "star.in", "missing.in");
+        assertEquals(1, solver.solve(names, (name, graph) -> String.valueOf(graph.applyMetaheuristic(5))));
+        assertEquals(Arrays.asList("path.in,0", "star.in,1"), Files.readAllLines(output.toPath()));
+
+        assertEquals(0, solver.solve(names, (name, graph) -> "not solved again"));
+        assertEquals(2, Files.readAllLines(output.toPath()).size());
+    }
+
+
+    @Test
+    public void testGraphCache() throws IOException
+    {
+        File file = File.createTempFile("graph", ".in");
+        File cache = GraphCache.cacheOf(file.getPath()).toFile();
+        file.deleteOnExit();
+        cache.deleteOnExit();
+        Files.write(file.toPath(), "4 4\n0 1\n1 2\n2 3\n3 0\n".getBytes(StandardCharsets.US_ASCII));
+
+        // the plain loader only reads
+        Constructor.createGraphFromFile(file.getPath());
+        assertFalse(cache.exists());
+
+        assertNull(GraphCache.load(file.getPath()));
+        CsrGraph parsed = (CsrGraph) Constructor.createGraphFromFile(file.getPath(), true);
+        assertTrue(cache.isFile());
+        if (Files.getFileStore(file.toPath()).supportsFileAttributeView("posix"))
+            assertEquals(Files.getPosixFilePermissions(file.toPath()), Files.getPosixFilePermissions(cache.toPath()));
+
+        CsrGraph cached = GraphCache.load(file.getPath());
+        assertNotNull(cached);
+        assertArrayEquals(parsed.getLabels(), cached.getLabels());
+        assertArrayEquals(parsed.getOffsets(), cached.getOffsets());
+        assertArrayEquals(parsed.getTargets(), cached.getTargets());
+        assertEquals(4, cached.getNumberOfEdges());
+        assertTrue(cached.areNeighbors(3, 0));
+
+        // a changed source makes the cache stale
+        Files.write(file.toPath(), "3 2\n0 1\n1 2\n".getBytes(StandardCharsets.US_ASCII));
+        assertNull(GraphCache.load(file.getPath()));
+        assertEquals(2, Constructor.createGraphFromFile(file.getPath(), true).getNumberOfEdges());
+
+        // a corrupted cache is ignored
+        byte[] bytes = Files.readAllBytes(cache.toPath());
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(cache.toPath(), bytes);
+        assertNull(GraphCache.load(file.getPath()));
+    }
+
+
+    @Test
+    public void testTimeBudget()
+    {
+        AbstractGraph<Integer> graph = (AbstractGraph<Integer>) createTestGraphStarRandomLeaves();
+
+        long start = System.nanoTime();
+        Solution solution = graph.applyMetaheuristicWithin(200, 2, 1);
+        long elapsed = System.nanoTime() - start;
+
+        assertTrue(solution.getHamiltonianCompletionNumber() >= 0);
+        assertTrue(solution.getRestarts() >= 1);
+        assertTrue(solution.getTimeToBest() <= elapsed);
+        assertTrue(elapsed < 2_000_000_000L, "took " + elapsed / 1000000 + "ms");
+
+        // a spent budget still runs one restart
+        solution = graph.applyMetaheuristicWithin(0, 1, 1);
+        assertEquals(1, solution.getRestarts());
+        assertTrue(solution.getHamiltonianCompletionNumber() >= 0);
+    }
+
+
+    @Test
+    public void testSolutionPathCover()
+    {
+        AbstractGraph<Integer> graph = (AbstractGraph<Integer>) createTestGraphStarRandomLeaves();
+        Solution solution = graph.getMetaheuristicSolution(30, 2, 5);
+        PathCover cover = solution.getPathCover();
+        cover.validate(graph);
+
+        assertEquals(solution.getHamiltonianCompletionNumber(), cover.getHamiltonianCompletionNumber());
+        assertEquals(cover.getNumberOfPaths() - 1, cover.getAddedEdges().length);
+        assertEquals(graph.getNumberOfVertices(), cover.toHamiltonianPath(graph).size());
+
+        Graph<Integer> grid = createTestGridGraph(10);
+        assertTrue(grid.getLocalSearchSolution(20, 1, 5).getPathCover().isValidFor(grid));
+    }
+
+
+    @Test
+    public void testPathCoverValidator()
+    {
+        Graph<Integer> graph = new Graph<>();
+        graph.addEdge(0, 1);
+        graph.addEdge(1, 2);
+        graph.addEdge(2, 3);
+
+        // paths 0-1 and 2-3, joined by the edge 1-2 into a single path
+        PathCover cover = PathCover.fromNeighbours(new int[]{1, -1, 0, -1, 3, -1, 2, -1}, graph);
+        assertEquals(1, cover.getNumberOfPaths());
+        assertEquals(0, cover.getHamiltonianCompletionNumber());
+        cover.validate(graph);
+
+        // paths 0-2 and 1-3 use non-edges
+        PathCover invalid = PathCover.fromNeighbours(new int[]{2, -1, 3, -1, 0, -1, 1, -1}, graph);
+        assertThrows(IllegalStateException.class, () -> invalid.validate(graph));
+
+        // a cycle is not a path cover
+        assertThrows(IllegalArgumentException.class,
+                () -> PathCover.fromNeighbours(new int[]{1, 2, 0, 2, 0, 1, -1, -1}, graph));
+    }
+
+
+    @Test
+    public void testPathForestMoves()
+    {
+        Graph<Integer> graph = createTestGridGraph(8);
+        Tree<Integer> tree = graph.getInitialSpanningTree(new SplittableRandom(3));
+        tree.getMinimumPathPartitionNumber();
+        int[] neighbours = new int[2 * graph.getNumberOfVertices()];
+        tree.copyPathCoverTo(neighbours);
+
+        PathForest forest = new PathForest(graph, neighbours);
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 0; i < 20000; i++) {
+            if (!forest.propose(random)) continue;
+
+            int paths = forest.getNumberOfPaths() + forest.getDeltaPaths();
+            int isolated = forest.getNumberOfIsolated() + forest.getDeltaIsolated();
+            forest.apply();
+            assertEquals(paths, forest.getNumberOfPaths());
+            assertEquals(isolated, forest.getNumberOfIsolated());
+
+            if (i % 100 == 0) {
+                int leaves = 0;
+                int counted = 0;
+                for (int v = 0; v < graph.getNumberOfVertices(); v++) {
+                    if (neighbours[2 * v] < 0) counted++;
+                    else if (neighbours[2 * v + 1] < 0) leaves++;
+                }
+                assertEquals(isolated, counted);
+                assertEquals(paths, counted + leaves / 2);
+                PathCover.fromNeighbours(neighbours.clone(), graph).validate(graph);
+            }
+        }
+    }
+
+
+    @Test
+    public void testPathForestChangedEdges()
+    {
+        Graph<Integer> graph = createTestGridGraph(8);
+        Tree<Integer> tree = graph.getInitialSpanningTree(new SplittableRandom(5));
+        tree.getMinimumPathPartitionNumber();
+        int[] neighbours = new int[2 * graph.getNumberOfVertices()];
+        tree.copyPathCoverTo(neighbours);
+
+        // the edges a move adds and removes are the only difference between the paths before and after it
+        PathForest forest = new PathForest(graph, neighbours);
+        SplittableRandom random = new SplittableRandom(5);
+        int[] proposal = new int[PathForest.PROPOSAL_SIZE];
+        int[] asked = new int[PathForest.PROPOSAL_SIZE];
+        for (int i = 0; i < 20000; i++) {
+            if (!forest.propose(random)) continue;
+
+            // asking for the removed edge only fills in the cut off neighbour, the last position of a proposal
+            forest.copyProposalTo(proposal, 0);
+            long added = forest.getAddedEdge();
+            long removed = forest.getRemovedEdge();
+            forest.copyProposalTo(asked, 0);
+            assertArrayEquals(Arrays.copyOf(proposal, PathForest.PROPOSAL_SIZE - 1),
+                    Arrays.copyOf(asked, PathForest.PROPOSAL_SIZE - 1));
+            forest.restoreProposal(proposal, 0);
+            assertEquals(removed, forest.getRemovedEdge());
+
+            Set<Long> before = pathEdges(neighbours);
+            forest.apply();
+            Set<Long> after = pathEdges(neighbours);
+
+            Set<Long> gone = new HashSet<>(before);
+            gone.removeAll(after);
+            Set<Long> got = new HashSet<>(after);
+            got.removeAll(before);
+            assertEquals(removed < 0 ? new HashSet<Long>() : new HashSet<>(Arrays.asList(removed)), gone);
+            assertEquals(added < 0 ? new HashSet<Long>() : new HashSet<>(Arrays.asList(added)), got);
+        }
+    }
+
+
+    private Set<Long> pathEdges(int[] neighbours)
+    {
+        Set<Long> edges = new HashSet<>();
+        for (int i = 0; i < neighbours.length; i++) {
+            if (neighbours[i] >= 0) edges.add(PathForest.edge(i / 2, neighbours[i]));
+        }
+        return edges;
+    }
+
+
+    @Test
+    public void testCoolingSchedules()
+    {
+        CoolingSchedule geometric = CoolingSchedule.of("geometric");
+        assertEquals(100, geometric.getInitialTemperature(), 1e-9);
+        assertEquals(93, geometric.cool(100, 0, 0), 1e-9);
+        assertFalse(geometric.shouldReheat(1000, 0));
+
+        CoolingSchedule lundyMees = CoolingSchedule.lundyMees(10, 1, 9);
+        double temperature = 10;
+        for (int epoch = 0; epoch < 9; epoch++)
+            temperature = lundyMees.cool(temperature, epoch, 0);
+        assertEquals(1, temperature, 1e-9);
+
+        CoolingSchedule reheating = CoolingSchedule.of("adaptive+reheat");
+        assertTrue(reheating.shouldReheat(10, 4));
+        assertFalse(reheating.shouldReheat(10, 5));
+        assertFalse(reheating.shouldReheat(9, 0));
+        assertEquals(10, reheating.reheat(1), 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> CoolingSchedule.of("exponential"));
+
+        Graph<Integer> graph = createTestGridGraph(6);
+        graph.setCoolingSchedule(CoolingSchedule.of("linear+reheat"));
+        assertEquals(0, graph.applyMetaheuristic(5, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> graph.setCoolingSchedule(null));
+    }
+
+
+    @Test
+    public void testParallelTempering()
+    {
+        AbstractGraph<Integer> graph = (AbstractGraph<Integer>) createTestGraphStarRandomLeaves();
+
+        long start = System.nanoTime();
+        Solution sequential = graph.getParallelTemperingSolution(20, 4, 1, 5);
+        long elapsed = System.nanoTime() - start;
+        sequential.getPathCover().validate(graph);
+        assertTrue(sequential.getTimeToBest() >= 0 && sequential.getTimeToBest() <= elapsed);
+        assertEquals(4, sequential.getRestarts());
+        assertEquals(sequential.getHamiltonianCompletionNumber(), graph.applyParallelTempering(20, 4, 3, 5));
+        assertEquals(sequential.getHamiltonianCompletionNumber(), graph.applyParallelTempering(20, 4, 8, 5));
+
+        assertEquals(0, createTestGridGraph(8).applyParallelTempering(50, 6, 2, 1));
+        assertThrows(IllegalArgumentException.class, () -> graph.applyParallelTempering(1, 0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> graph.applyParallelTemperingWithin(-1, 2, 1, 1));
+    }
+
+
+    @Test
+    public void testTabuSearch()
+    {
+        // the oldest edge is forgotten, an edge in the list twice stays until both are
+        TabuSearch.TabuList tabu = new TabuSearch.TabuList(3);
+        tabu.add(1);
+        tabu.add(2);
+        tabu.add(1);
+        tabu.add(-1);
+        assertEquals(3, tabu.size());
+        tabu.add(3);
+        assertTrue(tabu.contains(1));
+        tabu.add(4);
+        assertFalse(tabu.contains(2));
+        assertTrue(tabu.contains(1));
+        tabu.add(5);
+        assertFalse(tabu.contains(1));
+        assertTrue(tabu.contains(3) && tabu.contains(4) && tabu.contains(5));
+        assertFalse(tabu.contains(-1));
+        assertThrows(IllegalArgumentException.class, () -> new TabuSearch.TabuList(0));
+
+        assertEquals(Strategy.TABU, Strategy.of("Tabu"));
+        assertThrows(IllegalArgumentException.class, () -> Strategy.of("genetic"));
+
+        Graph<Integer> grid = createTestGridGraph(8);
+        grid.setStrategy(Strategy.TABU);
+        assertEquals(0, grid.applyMetaheuristic(5, 2, 1));
+        assertThrows(IllegalArgumentException.class, () -> grid.setStrategy(null));
+
+        AbstractGraph<Integer> graph = (AbstractGraph<Integer>) createTestGraphStarRandomLeaves();
+        graph.setStrategy(Strategy.TABU);
+        Solution sequential = graph.getMetaheuristicSolution(10, 1, 5);
+        sequential.getPathCover().validate(graph);
+        assertEquals(sequential.getHamiltonianCompletionNumber(), graph.applyMetaheuristic(10, 4, 5));
+    }
+
+
+    @Test
+    public void testReduction()
+    {
+        // a star with five leaves keeps two of them, the centre then joins one of them
+        Graph<Integer> star = new Graph<>();
+        for (int v = 1; v <= 5; v++)
+            star.addEdge(0, v);
+        Reduction reduction = Reduction.of(star);
+        assertEquals(2, reduction.getKernel().getNumberOfVertices());
+        assertEquals(3, reduction.getNumberOfRemovedPaths());
+        Solution solution = reduction.solve(kernel -> kernel.getMetaheuristicSolution(5, 1, 1));
+        solution.getPathCover().validate(star);
+        assertEquals(3, solution.getHamiltonianCompletionNumber());
+
+        // a grid has no vertex of degree one and its corners have neighbours of degree three
+        Graph<Integer> grid = createTestGridGraph(5);
+        assertSame(grid, Reduction.of(grid).getKernel());
+
+        SplittableRandom random = new SplittableRandom(3);
+        for (int round = 0; round < 100; round++) {
+            // a random tree with a few extra edges, it has leaves and chains
+            int n = 3 + random.nextInt(10);
+            Graph<Integer> graph = new Graph<>();
+            for (int v = 1; v < n; v++)
+                graph.addEdge(random.nextInt(v), v);
+            for (int e = random.nextInt(4); e > 0; e--) {
+                int u = random.nextInt(n);
+                int v = random.nextInt(n);
+                if (u != v && !graph.areNeighbors(u, v)) graph.addEdge(u, v);
+            }
+
+            reduction = Reduction.of(graph);
+            AbstractGraph<?> kernel = reduction.getKernel();
+            assertEquals(bruteForcePPN(graph), bruteForcePPN(kernel) + reduction.getNumberOfRemovedPaths());
+
+            long seed = round;
+            solution = reduction.solve(k -> k.getMetaheuristicSolution(5, 1, seed));
+            solution.getPathCover().validate(graph);
+        }
+    }
+
+
+    @Test
+    public void testLowerBound()
+    {
+        Graph<Integer> star = new Graph<>();
+        for (int v = 1; v <= 5; v++)
+            star.addEdge(0, v);
+        assertEquals(4, star.getPathPartitionLowerBound());
+        // a second component
+        star.addEdge(6, 7);
+        assertEquals(5, star.getPathPartitionLowerBound());
+
+        // the bound of a tree is exact, the first restart reaches it and the others are skipped
+        Graph<Integer> tree = new Graph<>();
+        for (int v = 2; v <= 64; v++)
+            tree.addEdge(v / 2, v);
+        Solution solution = tree.getMetaheuristicSolution(30, 1, 1);
+        assertTrue(solution.isOptimal());
+        assertEquals(1, solution.getRestarts());
+        assertEquals(solution.getHamiltonianCompletionNumber(), tree.getPathPartitionLowerBound() - 1);
+        assertTrue(Reduction.of(tree).solve(kernel -> kernel.getMetaheuristicSolution(5, 1, 1)).isOptimal());
+
+        SplittableRandom random = new SplittableRandom(7);
+        for (int round = 0; round < 100; round++) {
+            int n = 2 + random.nextInt(10);
+            Graph<Integer> graph = new Graph<>();
+            for (int v = 1; v < n; v++)
+                graph.addEdge(random.nextInt(v), v);
+            for (int e = random.nextInt(4); e > 0; e--) {
+                int u = random.nextInt(n);
+                int v = random.nextInt(n);
+                if (u != v && !graph.areNeighbors(u, v)) graph.addEdge(u, v);
+            }
+
+            int bound = graph.getPathPartitionLowerBound();
+            int exact = bruteForcePPN(graph);
+            assertTrue(bound <= exact);
+            if (graph.getNumberOfEdges() == n - 1) assertEquals(exact, bound);
+        }
+    }
+
+
+    @Test
+    public void testExactSolver()
+    {
+        SplittableRandom random = new SplittableRandom(13);
+        for (int round = 0; round < 100; round++) {
+            int n = 1 + random.nextInt(10);
+            Graph<Integer> graph = new Graph<>();
+            graph.addEdge(0, 0);
+            for (int v = 1; v < n; v++)
+                graph.addEdge(random.nextInt(v), v);
+            for (int e = random.nextInt(5); e > 0; e--) {
+                int u = random.nextInt(n);
+                int v = random.nextInt(n);
+                if (u != v && !graph.areNeighbors(u, v)) graph.addEdge(u, v);
+            }
+
+            int exact = bruteForcePPN(graph) - 1;
+            Solution subsets = ExactSolver.solveBySubsets(graph);
+            subsets.getPathCover().validate(graph);
+            assertEquals(exact, subsets.getHamiltonianCompletionNumber());
+            assertTrue(subsets.isOptimal());
+
+            Solution branched = ExactSolver.branchAndBound(graph, Long.MAX_VALUE);
+            branched.getPathCover().validate(graph);
+            assertEquals(exact, branched.getHamiltonianCompletionNumber());
+            assertTrue(branched.isOptimal());
+        }
+
+        // a small graph is solved exactly instead of restarted
+        Solution solution = createTestGraph().getMetaheuristicSolution(30, 2, 1);
+        assertEquals(0, solution.getRestarts());
+        assertTrue(solution.isOptimal());
+        assertEquals(0, solution.getHamiltonianCompletionNumber());
+        assertThrows(IllegalArgumentException.class, () -> ExactSolver.solveBySubsets(createTestGridGraph(5)));
+    }
+
+
+    /**
+     * @return the minimum path partition number of a small graph, by brute force over the sets of edges
+     */
+    private static int bruteForcePPN(AbstractGraph<?> graph)
+    {
+        int n = graph.getNumberOfVertices();
+        List<int[]> edges = new ArrayList<>();
+        for (int u = 0; u < n; u++) {
+            for (int k = 0; k < graph.degreeAt(u); k++) {
+                int v = graph.neighborIndexAt(u, k);
+                if (u < v) edges.add(new int[]{u, v});
+            }
+        }
+
+        // the largest set of edges that forms a linear forest
+        int best = 0;
+        for (int mask = 0; mask < 1 << edges.size(); mask++) {
+            int[] degree = new int[n];
+            IntUnionFind components = new IntUnionFind(n);
+            boolean valid = true;
+            for (int e = 0; e < edges.size() && valid; e++) {
+                if ((mask & 1 << e) == 0) continue;
+                int u = edges.get(e)[0];
+                int v = edges.get(e)[1];
+                valid = ++degree[u] <= 2 && ++degree[v] <= 2 && components.union(u, v);
+            }
+            if (valid) best = Math.max(best, Integer.bitCount(mask));
+        }
+        return n - best;
+    }
+
+
+    @Test
+    public void testMetricsHistogram()
+    {
+        Metrics.Histogram histogram = new Metrics.Histogram();
+        for (long value = 1; value <= 1000; value++)
+            histogram.record(value * 1000);
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500500, histogram.getMean());
+        assertEquals(1000000, histogram.getMax());
+        // the buckets have 16 sub-buckets, so a percentile is at most 1/16 below the exact value
+        assertTrue(Math.abs(histogram.getPercentile(0.5) - 500000) <= 500000 / 16);
+        assertTrue(Math.abs(histogram.getPercentile(0.99) - 990000) <= 990000 / 16);
+
+        for (long value : new long[]{0, 15, 16, 17, 1023, 1L << 40, Long.MAX_VALUE}) {
+            long lower = Metrics.Histogram.valueOf(Metrics.Histogram.indexOf(value));
+            assertTrue(lower <= value && value - lower <= value / 16);
+        }
+
+        // the metrics are off unless hcp.metrics is set, so a search does not count anything
+        if (!Metrics.ENABLED) {
+            createTestGridGraph(5).applyMetaheuristic(5, 2, 1);
+            assertEquals(0L, (long) Metrics.getCounters().get("restarts"));
+        }
+    }
+
+
+    @Test
+    public void testMultistartIsIndependentOfThreads()
+    {
+        AbstractGraph<Integer> graph = (AbstractGraph<Integer>) createTestGraphStarRandomLeaves();
+
+        int sequential = graph.applyMetaheuristic(30, 1, 42);
+        assertEquals(sequential, graph.applyMetaheuristic(30, 4, 42));
+        assertEquals(sequential, graph.applyMetaheuristic(30, 8, 42));
+
+        sequential = graph.applyLocalSearchAlgorithm(30, 1, 7);
+        assertEquals(sequential, graph.applyLocalSearchAlgorithm(30, 3, 7));
+    }
+
+
+    @Test
+    public void testSpanningTreeReuse()
+    {
+        Graph<Integer> graph = createTestGridGraph(10);
+        graph.setSpanningTree(SpanningTree.MIXED);
+        Tree<Integer> reused = graph.getInitialSpanningTree(new SplittableRandom(0));
+        PathForest forest = reused.getPathForest(graph);
+        for (int seed = 1; seed < 20; seed++) {
+            reused.perturb(graph, new SplittableRandom(seed));
+            reused.getMinimumPathPartitionNumber();
+            assertSame(reused, graph.getInitialSpanningTree(new SplittableRandom(seed), reused));
+
+            // a reused tree is the same as a new one, including the order in which the move operator visits vertices
+            Tree<Integer> fresh = graph.getInitialSpanningTree(new SplittableRandom(seed));
+            assertEquals(fresh.getRoot(), reused.getRoot());
+            assertEquals(fresh.getNumberOfLeaves(), reused.getNumberOfLeaves());
+            assertEquals(fresh.getMinimumPathPartitionNumber(), reused.getMinimumPathPartitionNumber());
+            for (Integer v : fresh.getVertices())
+                assertEquals(fresh.getNeighborsOf(v), reused.getNeighborsOf(v));
+
+            // the search runs in the path forest the reused tree keeps and finds the same path cover
+            assertSame(forest, reused.getPathForest(graph));
+            assertEquals(graph.metaheuristicSearch(fresh, new SplittableRandom(seed), () -> false),
+                    graph.metaheuristicSearch(reused, new SplittableRandom(seed), () -> false));
+
+            fresh.perturb(graph, new SplittableRandom(seed));
+            reused.perturb(graph, new SplittableRandom(seed));
+            for (Integer v : fresh.getVertices())
+                assertEquals(fresh.getNeighborsOf(v), reused.getNeighborsOf(v));
+        }
+
+        Graph<Integer> other = createTestGridGraph(10);
+        assertNotSame(reused, other.getInitialSpanningTree(new SplittableRandom(0), reused));
+    }
+
+
+    @Test
+    public void testSeedIsReproducible()
+    {
+        Graph<Integer> graph = createTestGridGraph(10);
+
+        graph.setSeed(3);
+        Tree<Integer> first = (Tree<Integer>) graph.getInitialSpanningTree();
+        int firstSolution = graph.applyMetaheuristic(20);
+
+        graph.setSeed(3);
+        Tree<Integer> second = (Tree<Integer>) graph.getInitialSpanningTree();
+        assertEquals(first.getRoot(), second.getRoot());
+        for (Integer v : first.getVertices())
+            assertEquals(first.getNeighborsOf(v), second.getNeighborsOf(v));
+        assertEquals(firstSolution, graph.applyMetaheuristic(20));
+    }
 }
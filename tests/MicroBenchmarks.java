@@ -0,0 +1,261 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+
+/**
+ * Microbenchmarks for the hot paths of the search. Every benchmark runs in its own forked JVM, is warmed up first
+ * and then measured over a number of timed iterations. The throughput is reported in operations per second, the
+ * allocation rate in bytes per operation (measured with the allocation counter of the benchmark thread) together
+ * with the number of garbage collections during the measurement.
+ * <p>
+ * Usage: {@code java -cp bin MicroBenchmarks [benchmark...]}, without arguments every benchmark is run on every graph.
+ * The benchmarks are: perturb, pathPartition, unionFind, intUnionFind, spanningTree, parse and cache.
+ */
+public class MicroBenchmarks {
+
+    private static final String path = "./Benchmarks/testingConnected/";
+    private static final String[] graphs = {"er_8_3.in", "celegansneural.in", "circle_like_30000_10.in"};
+    private static final String[] benchmarks = {"perturb", "pathPartition", "unionFind", "intUnionFind", "spanningTree", "parse", "cache"};
+
+    private static final int forks = 2;
+    private static final int warmupIterations = 5;
+    private static final int measurementIterations = 5;
+    private static final long iterationTime = 1_000_000_000L;
+
+    // results are accumulated here so the JIT can not remove the benchmarked code
+    private static volatile long sink;
+
+
+    public static void main(String[] args) throws Exception
+    {
+        if (args.length == 3 && args[0].equals("--fork")) {
+            runFork(args[1], args[2]);
+            return;
+        }
+
+        String[] selected = args.length > 0 ? args : benchmarks;
+        System.out.printf("%-14s %-26s %16s %12s %14s %6s%n", "Benchmark", "Graph", "ops/s", "error", "B/op", "gc");
+        for (String benchmark : selected) {
+            for (String graph : graphs) {
+                fork(benchmark, graph);
+            }
+        }
+    }
+
+
+    /**
+     * Runs a benchmark in a number of fresh JVMs and prints the aggregated result.
+     *
+     * @param benchmark the name of the benchmark
+     * @param graph     the file name of the graph
+     */
+    private static void fork(String benchmark, String graph) throws IOException, InterruptedException
+    {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<double[]> iterations = new ArrayList<>();
+
+        for (int i = 0; i < forks; i++) {
+            ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    MicroBenchmarks.class.getName(), "--fork", benchmark, graph);
+            builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+            Process process = builder.start();
+
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    iterations.add(Arrays.stream(line.split(",")).mapToDouble(Double::parseDouble).toArray());
+                }
+            }
+            if (process.waitFor() != 0)
+                throw new IllegalStateException("Fork of " + benchmark + " on " + graph + " failed!");
+        }
+
+        report(benchmark, graph, iterations);
+    }
+
+
+    /**
+     * Prints the mean throughput with a 99.9% confidence interval, the mean allocation and the total number of
+     * garbage collections of the measured iterations.
+     *
+     * @param benchmark  the name of the benchmark
+     * @param graph      the file name of the graph
+     * @param iterations per iteration the throughput, the bytes per operation and the number of collections
+     */
+    private static void report(String benchmark, String graph, List<double[]> iterations)
+    {
+        int n = iterations.size();
+        double throughput = 0, allocation = 0, collections = 0;
+        for (double[] iteration : iterations) {
+            throughput += iteration[0] / n;
+            allocation += iteration[1] / n;
+            collections += iteration[2];
+        }
+
+        double variance = 0;
+        for (double[] iteration : iterations)
+            variance += (iteration[0] - throughput) * (iteration[0] - throughput) / Math.max(n - 1, 1);
+        double error = 3.29 * Math.sqrt(variance / n);
+
+        System.out.printf("%-14s %-26s %16.1f %12.1f %14.1f %6d%n",
+                benchmark, graph, throughput, error, allocation, (long) collections);
+    }
+
+
+    /**
+     * Runs the warmup and measurement iterations of a benchmark in this JVM, every measured iteration is printed as
+     * a line with the throughput, the bytes per operation and the number of garbage collections.
+     *
+     * @param benchmark the name of the benchmark
+     * @param graph     the file name of the graph
+     */
+    private static void runFork(String benchmark, String graph)
+    {
+        Operation operation = create(benchmark, path + graph);
+
+        for (int i = 0; i < warmupIterations; i++)
+            iteration(operation);
+
+        for (int i = 0; i < measurementIterations; i++) {
+            double[] result = iteration(operation);
+            System.out.println(result[0] + "," + result[1] + "," + result[2]);
+        }
+    }
+
+
+    /**
+     * Runs an operation repeatedly for the duration of one iteration. Only the time spent in
+     * {@link Operation#run()} is measured, the preparation of every invocation is excluded.
+     *
+     * @param operation the operation to run
+     * @return the throughput, the bytes per operation and the number of garbage collections
+     */
+    private static double[] iteration(Operation operation)
+    {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        long operations = 0, time = 0, allocated = 0;
+        long collections = collectionCount();
+        long end = System.nanoTime() + iterationTime;
+
+        while (System.nanoTime() < end) {
+            operation.prepare();
+
+            long bytes = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            sink += operation.run();
+            time += System.nanoTime() - start;
+            allocated += threads.getThreadAllocatedBytes(thread) - bytes;
+
+            operations++;
+        }
+
+        return new double[]{operations * 1e9 / time, (double) allocated / operations, collectionCount() - collections};
+    }
+
+
+    /**
+     * @return the total number of garbage collections so far
+     */
+    private static long collectionCount()
+    {
+        long count = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans())
+            count += Math.max(bean.getCollectionCount(), 0);
+        return count;
+    }
+
+
+    /**
+     * Creates the operation of a benchmark.
+     *
+     * @param benchmark the name of the benchmark
+     * @param file      the path of the graph
+     * @return the operation
+     * @throws IllegalArgumentException if the benchmark does not exist
+     */
+    @SuppressWarnings("unchecked")
+    private static Operation create(String benchmark, String file) throws IllegalArgumentException
+    {
+        AbstractGraph<Integer> graph = (AbstractGraph<Integer>) Constructor.createGraphFromFile(file, true);
+        SplittableRandom random = new SplittableRandom(42);
+        Tree<Integer> tree = graph.getInitialSpanningTree(random);
+
+        switch (benchmark) {
+            case "perturb":
+                // the move operator is applied to the path cover of the previous step, like in the search
+                return new Operation() {
+                    public void prepare() { tree.getMinimumPathPartitionNumber(); }
+                    public long run() { tree.perturb(graph, random); return tree.getNumberOfEdges(); }
+                };
+            case "pathPartition":
+                return new Operation() {
+                    public void prepare() { tree.perturb(graph, random); }
+                    public long run() { return tree.getMinimumPathPartitionNumber(); }
+                };
+            case "unionFind":
+                return new Operation() {
+                    public long run()
+                    {
+                        UnionFind<Integer> unionFind = new UnionFind<>(graph.getNumberOfVertices());
+                        for (Integer v : graph.getVertices())
+                            unionFind.makeSet(v);
+                        for (Integer v : graph.getVertices())
+                            for (Integer u : graph.getNeighborsOf(v))
+                                unionFind.union(v, u);
+                        return unionFind.find(graph.vertexAt(0));
+                    }
+                };
+            case "intUnionFind":
+                IntUnionFind unionFind = new IntUnionFind(graph.getNumberOfVertices());
+                return new Operation() {
+                    public void prepare() { unionFind.reset(); }
+                    public long run()
+                    {
+                        int n = graph.getNumberOfVertices();
+                        for (int i = 0; i < n; i++)
+                            for (int k = 0; k < graph.degreeAt(i); k++)
+                                unionFind.union(i, graph.neighborIndexAt(i, k));
+                        return unionFind.find(0);
+                    }
+                };
+            case "spanningTree":
+                return () -> graph.getInitialSpanningTree(random).getNumberOfEdges();
+            case "parse":
+                return () -> Constructor.createGraphFromFile(file, false).getNumberOfEdges();
+            case "cache":
+                return () -> GraphCache.load(file).getNumberOfEdges();
+            default:
+                throw new IllegalArgumentException("Unknown benchmark " + benchmark + "!");
+        }
+    }
+
+
+    /**
+     * A benchmarked operation.
+     */
+    private interface Operation {
+
+        /**
+         * Brings the state in place for the next invocation, not measured.
+         */
+        default void prepare() {}
+
+
+        /**
+         * The measured invocation.
+         *
+         * @return a value derived from the result, consumed so it can not be optimized away
+         */
+        long run();
+    }
+}
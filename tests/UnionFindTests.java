@@ -61,6 +61,45 @@ public class UnionFindTests {
     }
 
 
+    @Test
+    public void testIntUnion()
+    {
+        IntUnionFind unionFind = new IntUnionFind(4);
+
+        assertEquals(7, unionFind.find(7));
+        assertTrue(unionFind.union(0, 1));
+        assertTrue(unionFind.union(2, 3));
+        assertTrue(unionFind.union(1, 3));
+        assertFalse(unionFind.union(0, 2));
+        assertTrue(unionFind.union(8, 9));
+
+        assertEquals(unionFind.find(0), unionFind.find(3));
+        assertEquals(unionFind.find(8), unionFind.find(9));
+        assertNotEquals(unionFind.find(0), unionFind.find(9));
+        assertTrue(unionFind.getCapacity() >= 10);
+    }
+
+
+    @Test
+    public void testIntReset()
+    {
+        IntUnionFind unionFind = new IntUnionFind(10);
+        for (int i = 1; i < 10; i++)
+            unionFind.union(0, i);
+
+        unionFind.reset();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, unionFind.find(i));
+            assertEquals(i, unionFind.getParent(i));
+        }
+
+        assertTrue(unionFind.union(3, 4));
+        assertEquals(unionFind.find(3), unionFind.find(4));
+        assertNotEquals(unionFind.find(3), unionFind.find(0));
+    }
+
+
     private static UnionFind<Integer> getUnionFind()
     {
         UnionFind<Integer> unionFind = new UnionFind<>();